@@ -0,0 +1,49 @@
+package com.griddynamics.cd.config;
+
+import com.griddynamics.cd.entity.CarEntity;
+import com.griddynamics.cd.entity.DepartmentEntity;
+import com.griddynamics.cd.entity.EmployeeEntity;
+import com.griddynamics.cd.repository.query.EntityColumns;
+import com.griddynamics.cd.repository.query.SortableColumnRegistry;
+import io.swagger.v3.oas.models.media.StringSchema;
+import org.springdoc.core.customizers.OpenApiCustomiser;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class OpenApiConfig {
+
+    private static final Map<String, Class<?>> SORTED_RESOURCES = Map.of(
+            "/cars", CarEntity.class,
+            "/employees", EmployeeEntity.class,
+            "/departments", DepartmentEntity.class
+    );
+
+    /**
+     * Publishes the sortable columns of each resource, including {@code association.column} paths of referenced
+     * entities, as the allowed values of its {@code orderBy} parameter.
+     */
+    @Bean
+    public OpenApiCustomiser sortableColumnsCustomiser(SortableColumnRegistry sortableColumnRegistry) {
+        return openApi -> openApi.getPaths().forEach((path, pathItem) -> SORTED_RESOURCES.entrySet().stream()
+                .filter(resource -> path.equals(resource.getKey()) || path.startsWith(resource.getKey() + "/"))
+                .findFirst()
+                .ifPresent(resource -> pathItem.readOperations().stream()
+                        .filter(operation -> operation.getParameters() != null)
+                        .flatMap(operation -> operation.getParameters().stream())
+                        .filter(parameter -> "orderBy".equals(parameter.getName()))
+                        .forEach(parameter -> {
+                            StringSchema schema = new StringSchema();
+                            schema.setDefault("id");
+                            EntityColumns columns = sortableColumnRegistry.columns(resource.getValue());
+                            List<String> sortable = new ArrayList<>(columns.all().keySet());
+                            sortable.addAll(columns.related().keySet());
+                            schema.setEnum(sortable);
+                            parameter.setSchema(schema);
+                        })));
+    }
+}
@@ -1,21 +1,35 @@
 package com.griddynamics.cd.controller;
 
 import com.griddynamics.cd.annotation.NotEmptyOrNull;
+import com.griddynamics.cd.exception.VinNumberMismatchException;
+import com.griddynamics.cd.model.BatchDeleteRequest;
+import com.griddynamics.cd.model.BatchGetRequest;
 import com.griddynamics.cd.model.Car;
-import com.griddynamics.cd.model.Color;
+import com.griddynamics.cd.model.CountMode;
+import com.griddynamics.cd.model.ExportFormat;
+import com.griddynamics.cd.model.create.BulkCreateRequest;
 import com.griddynamics.cd.model.create.CreateCarRequest;
+import com.griddynamics.cd.model.filter.CarFilter;
+import com.griddynamics.cd.model.update.BulkUpdateRequest;
 import com.griddynamics.cd.model.update.UpdateCarRequest;
 import com.griddynamics.cd.service.CarService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.AllArgsConstructor;
+import org.springdoc.api.annotations.ParameterObject;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
 import java.util.List;
 
 @RestController
@@ -35,21 +49,88 @@ public class CarController {
                     @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
             }
     )
-    public ResponseEntity<?> getAllCars(@NotEmptyOrNull(message = "Manufacturer list should be null or not empty")
-                                        @RequestParam(required = false) List<String> manufacturers,
-                                        @NotEmptyOrNull(message = "Model list should be null or not empty")
-                                        @RequestParam(required = false) List<String> models,
-                                        @NotEmptyOrNull(message = "Vin number list should be null or not empty")
-                                        @RequestParam(required = false) List<String> vinNumbers,
-                                        @NotEmptyOrNull(message = "Employee id list should be null or not empty")
-                                        @RequestParam(required = false) List<Long> employeeIds,
-                                        @NotEmptyOrNull(message = "Color list should be null or not empty")
-                                        @RequestParam(required = false) List<Color> colors,
+    public ResponseEntity<?> getAllCars(@ParameterObject @Valid CarFilter filter,
+                                        @NotEmptyOrNull(message = "Field list should be null or not empty")
+                                        @RequestParam(required = false) List<String> fields,
                                         @RequestParam(defaultValue = "0") int pageNumber,
                                         @RequestParam(defaultValue = "3") int pageSize,
                                         @RequestParam(defaultValue = "id") String orderBy,
-                                        @RequestParam(defaultValue = "ASC") Sort.Direction order) {
-        return carService.getCarsWithFiltering(manufacturers, models, vinNumbers, employeeIds, colors, pageNumber, pageSize, orderBy, order);
+                                        @RequestParam(defaultValue = "ASC") Sort.Direction order,
+                                        @Parameter(description = "Repeatable column,direction pair, takes precedence over orderBy and order",
+                                                array = @ArraySchema(schema = @Schema(type = "string", example = "id,asc")))
+                                        Sort sort,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "EXACT") CountMode count) {
+        return carService.getCarsWithFiltering(filter, fields, pageNumber, pageSize, orderBy, order, sort, cursor, count);
+    }
+
+    @GetMapping("/cars/count")
+    @Operation(
+            summary = "Count cars matching the filters, HEAD returns only the X-Total-Count header",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> countCars(@ParameterObject @Valid CarFilter filter,
+                                       @Parameter(description = "Read the planner row estimate instead of counting every row")
+                                       @RequestParam(defaultValue = "false") boolean estimate) {
+        return carService.countCars(filter, estimate);
+    }
+
+    @GetMapping("/cars/facets")
+    @Operation(
+            summary = "Count cars matching the filters per color, manufacturer and employee",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> getCarFacets(@ParameterObject @Valid CarFilter filter) {
+        return carService.getCarFacets(filter);
+    }
+
+    @GetMapping("/cars/export")
+    @Operation(
+            summary = "Export all cars matching the filters as NDJSON or CSV",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> exportCars(@ParameterObject @Valid CarFilter filter,
+                                                            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return carService.exportCars(filter, format);
+    }
+
+    @GetMapping("/cars/search")
+    @Operation(
+            summary = "Fuzzy search cars by manufacturer and model, ranked by similarity",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "204", description = "No content"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> searchCars(@NotBlank(message = "Search text should not be blank")
+                                        @RequestParam String q,
+                                        @RequestParam(defaultValue = "3") int pageSize,
+                                        @RequestParam(required = false) String cursor) {
+        return carService.searchCars(q, cursor, pageSize);
+    }
+
+    @PostMapping("/cars/batch-get")
+    @Operation(
+            summary = "Get cars by ids in request order, unknown ids come back as null entries",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> getCarsByIds(@RequestBody @Valid BatchGetRequest batchGetRequest) {
+        return carService.getCarsByIds(batchGetRequest.getIds());
     }
 
     @GetMapping("/cars/{carId}")
@@ -91,6 +172,65 @@ public class CarController {
         return carService.saveCar(createCarRequest);
     }
 
+    @PostMapping("/cars/bulk")
+    @Operation(
+            summary = "Save cars in one insert, reporting the outcome of every item in request order",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> saveCars(@RequestBody @Valid BulkCreateRequest<CreateCarRequest> bulkCreateRequest) {
+        return carService.saveCars(bulkCreateRequest.getItems());
+    }
+
+    @PatchMapping("/cars/bulk")
+    @Operation(
+            summary = "Partially update cars, per item or one change set for every car matching a filter, in one update",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content()),
+                    @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
+            }
+    )
+    public ResponseEntity<?> updateCars(@RequestBody @Valid BulkUpdateRequest<CarFilter, UpdateCarRequest> bulkUpdateRequest) {
+        return carService.updateCars(bulkUpdateRequest);
+    }
+
+    @PutMapping("/cars/by-vin/{vinNumber}")
+    @Operation(
+            summary = "Create the car with the given VIN or replace the car that has it, in one statement",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Replaced"),
+                    @ApiResponse(responseCode = "201", description = "Created"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content()),
+                    @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
+            }
+    )
+    public ResponseEntity<Car> upsertCarByVin(@PathVariable @Pattern(regexp = "([A-Z0-9]{17})", message = "Invalid vin number") String vinNumber,
+                                              @RequestBody @Valid CreateCarRequest createCarRequest) {
+        if (createCarRequest.getVinNumber() != null && !createCarRequest.getVinNumber().equals(vinNumber)) {
+            throw new VinNumberMismatchException(vinNumber, createCarRequest.getVinNumber());
+        }
+        return carService.upsertCarByVin(vinNumber, createCarRequest);
+    }
+
+    @PutMapping("/cars/by-vin")
+    @Operation(
+            summary = "Create or replace cars by VIN in one statement, reporting per car whether it was created or updated",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> upsertCarsByVin(@RequestBody @Valid BulkCreateRequest<CreateCarRequest> bulkCreateRequest) {
+        return carService.upsertCarsByVin(bulkCreateRequest.getItems());
+    }
+
     @PutMapping("/cars/{carId}")
     @Operation(
             summary = "Update car model",
@@ -117,4 +257,17 @@ public class CarController {
     public void deleteCarById(@PathVariable Long carId) {
         carService.deleteCar(carId);
     }
+
+    @DeleteMapping("/cars")
+    @Operation(
+            summary = "Delete cars by ids in one statement",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> deleteCarsByIds(@RequestBody @Valid BatchDeleteRequest batchDeleteRequest) {
+        return carService.deleteCars(batchDeleteRequest.getIds());
+    }
 }
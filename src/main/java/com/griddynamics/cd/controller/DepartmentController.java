@@ -1,19 +1,29 @@
 package com.griddynamics.cd.controller;
 
 import com.griddynamics.cd.annotation.NotEmptyOrNull;
+import com.griddynamics.cd.model.BatchDeleteRequest;
+import com.griddynamics.cd.model.BatchGetRequest;
+import com.griddynamics.cd.model.CountMode;
 import com.griddynamics.cd.model.Department;
-import com.griddynamics.cd.model.DepartmentType;
+import com.griddynamics.cd.model.ExportFormat;
+import com.griddynamics.cd.model.create.BulkCreateRequest;
 import com.griddynamics.cd.model.create.CreateDepartmentRequest;
+import com.griddynamics.cd.model.filter.DepartmentFilter;
 import com.griddynamics.cd.model.update.UpdateDepartmentRequest;
 import com.griddynamics.cd.service.DepartmentService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.AllArgsConstructor;
+import org.springdoc.api.annotations.ParameterObject;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -36,32 +46,74 @@ public class DepartmentController {
                     @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
             }
     )
-    public ResponseEntity<?> getAllDepartments(@NotEmptyOrNull(message = "Name list should be null or not empty")
-                                               @RequestParam(required = false) List<String> names,
-                                               @NotEmptyOrNull(message = "Email list should be null or not empty")
-                                               @RequestParam(required = false) List<String> emails,
-                                               @NotEmptyOrNull(message = "Description list should be null or not empty")
-                                               @RequestParam(required = false) List<String> descriptions,
-                                               @NotEmptyOrNull(message = "Department type list should be null or not empty")
-                                               @RequestParam(required = false) List<DepartmentType> departmentTypes,
+    public ResponseEntity<?> getAllDepartments(@ParameterObject @Valid DepartmentFilter filter,
+                                               @NotEmptyOrNull(message = "Field list should be null or not empty")
+                                               @RequestParam(required = false) List<String> fields,
                                                @RequestParam(defaultValue = "0") int pageNumber,
                                                @RequestParam(defaultValue = "3") int pageSize,
                                                @RequestParam(defaultValue = "id") String orderBy,
-                                               @RequestParam(defaultValue = "ASC") Sort.Direction order) {
-        return departmentService.getAllDepartments(names, emails, descriptions, departmentTypes, pageNumber, pageSize, orderBy, order);
+                                               @RequestParam(defaultValue = "ASC") Sort.Direction order,
+                                               @Parameter(description = "Repeatable column,direction pair, takes precedence over orderBy and order",
+                                                       array = @ArraySchema(schema = @Schema(type = "string", example = "id,asc")))
+                                               Sort sort,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "EXACT") CountMode count) {
+        return departmentService.getAllDepartments(filter, fields, pageNumber, pageSize, orderBy, order, sort, cursor, count);
+    }
+
+    @GetMapping("/count")
+    @Operation(
+            summary = "Count departments matching the filters, HEAD returns only the X-Total-Count header",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> countDepartments(@ParameterObject @Valid DepartmentFilter filter,
+                                              @Parameter(description = "Read the planner row estimate instead of counting every row")
+                                              @RequestParam(defaultValue = "false") boolean estimate) {
+        return departmentService.countDepartments(filter, estimate);
+    }
+
+    @GetMapping("/export")
+    @Operation(
+            summary = "Export all departments matching the filters as NDJSON or CSV",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> exportDepartments(@ParameterObject @Valid DepartmentFilter filter,
+                                                                   @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return departmentService.exportDepartments(filter, format);
+    }
+
+    @PostMapping("/batch-get")
+    @Operation(
+            summary = "Get departments by ids in request order, unknown ids come back as null entries",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> getDepartmentsByIds(@RequestBody @Valid BatchGetRequest batchGetRequest) {
+        return departmentService.getDepartmentsByIds(batchGetRequest.getIds());
     }
 
     @GetMapping("/{departmentId}")
     @Operation(
-            summary = "Get department by id",
+            summary = "Get department by id, expand=employees or expand=employees.cars embeds related resources",
             responses = {
                     @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content()),
                     @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
             }
     )
-    public Department getDepartmentById(@PathVariable Long departmentId) {
-        return departmentService.getDepartmentById(departmentId);
+    public Department getDepartmentById(@PathVariable Long departmentId,
+                                        @RequestParam(required = false) List<String> expand) {
+        return departmentService.getDepartmentById(departmentId, expand);
     }
 
     @PostMapping
@@ -77,6 +129,19 @@ public class DepartmentController {
         return departmentService.saveDepartment(departmentRequest);
     }
 
+    @PostMapping("/bulk")
+    @Operation(
+            summary = "Save departments in one insert, reporting the outcome of every item in request order",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> saveDepartments(@RequestBody @Valid BulkCreateRequest<CreateDepartmentRequest> bulkCreateRequest) {
+        return departmentService.saveDepartments(bulkCreateRequest.getItems());
+    }
+
     @PutMapping("/{departmentId}")
     @Operation(
             summary = "Update department model",
@@ -103,4 +168,17 @@ public class DepartmentController {
     public void deleteDepartmentById(@PathVariable Long departmentId) {
         departmentService.deleteDepartment(departmentId);
     }
+
+    @DeleteMapping
+    @Operation(
+            summary = "Delete departments by ids in one statement, departments that still have employees are kept and reported as failed",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> deleteDepartmentsByIds(@RequestBody @Valid BatchDeleteRequest batchDeleteRequest) {
+        return departmentService.deleteDepartments(batchDeleteRequest.getIds());
+    }
 }
@@ -1,22 +1,33 @@
 package com.griddynamics.cd.controller;
 
 import com.griddynamics.cd.annotation.NotEmptyOrNull;
+import com.griddynamics.cd.model.BatchDeleteRequest;
+import com.griddynamics.cd.model.BatchGetRequest;
+import com.griddynamics.cd.model.CountMode;
 import com.griddynamics.cd.model.Employee;
+import com.griddynamics.cd.model.ExportFormat;
+import com.griddynamics.cd.model.create.BulkCreateRequest;
 import com.griddynamics.cd.model.create.CreateEmployeeRequest;
+import com.griddynamics.cd.model.filter.EmployeeFilter;
+import com.griddynamics.cd.model.update.BulkUpdateRequest;
 import com.griddynamics.cd.model.update.UpdateEmployeeRequest;
 import com.griddynamics.cd.service.EmployeeService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.AllArgsConstructor;
+import org.springdoc.api.annotations.ParameterObject;
 import org.springframework.data.domain.Sort;
-import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
-import java.time.LocalDate;
+import javax.validation.constraints.NotBlank;
 import java.util.List;
 
 @RestController
@@ -36,37 +47,91 @@ public class EmployeeController {
                     @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
             }
     )
-    public ResponseEntity<?> getAllEmployees(@NotEmptyOrNull(message = "First name list should be null or not empty")
-                                             @RequestParam(required = false) List<String> firstNames,
-                                             @NotEmptyOrNull(message = "Last name list should be null or not empty")
-                                             @RequestParam(required = false) List<String> lastNames,
-                                             @NotEmptyOrNull(message = "Birthday list should be null or not empty")
-                                             @RequestParam(required = false)
-                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) List<LocalDate> birthdays,
-                                             @NotEmptyOrNull(message = "Address list should be null or not empty")
-                                             @RequestParam(required = false) List<String> addresses,
-                                             @NotEmptyOrNull(message = "Phone number list should be null or not empty")
-                                             @RequestParam(required = false) List<String> phoneNumbers,
-                                             @NotEmptyOrNull(message = "Department id list should be null or not empty")
-                                             @RequestParam(required = false) List<Long> departmentIds,
+    public ResponseEntity<?> getAllEmployees(@ParameterObject @Valid EmployeeFilter filter,
+                                             @NotEmptyOrNull(message = "Field list should be null or not empty")
+                                             @RequestParam(required = false) List<String> fields,
                                              @RequestParam(defaultValue = "0") int pageNumber,
                                              @RequestParam(defaultValue = "3") int pageSize,
                                              @RequestParam(defaultValue = "id") String orderBy,
-                                             @RequestParam(defaultValue = "ASC") Sort.Direction order) {
-        return employeeService.getAllEmployees(firstNames, lastNames, birthdays, addresses, phoneNumbers, departmentIds, pageNumber, pageSize, orderBy, order);
+                                             @RequestParam(defaultValue = "ASC") Sort.Direction order,
+                                             @Parameter(description = "Repeatable column,direction pair, takes precedence over orderBy and order",
+                                                     array = @ArraySchema(schema = @Schema(type = "string", example = "id,asc")))
+                                             Sort sort,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "EXACT") CountMode count) {
+        return employeeService.getAllEmployees(filter, fields, pageNumber, pageSize, orderBy, order, sort, cursor, count);
+    }
+
+    @GetMapping("/employees/count")
+    @Operation(
+            summary = "Count employees matching the filters, HEAD returns only the X-Total-Count header",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> countEmployees(@ParameterObject @Valid EmployeeFilter filter,
+                                            @Parameter(description = "Read the planner row estimate instead of counting every row")
+                                            @RequestParam(defaultValue = "false") boolean estimate) {
+        return employeeService.countEmployees(filter, estimate);
+    }
+
+    @GetMapping("/employees/export")
+    @Operation(
+            summary = "Export all employees matching the filters as NDJSON or CSV",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> exportEmployees(@ParameterObject @Valid EmployeeFilter filter,
+                                                                 @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return employeeService.exportEmployees(filter, format);
+    }
+
+    @GetMapping("/employees/search")
+    @Operation(
+            summary = "Fuzzy search employees by first and last name, ranked by similarity",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "204", description = "No content"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> searchEmployees(@NotBlank(message = "Search text should not be blank")
+                                             @RequestParam String q,
+                                             @RequestParam(defaultValue = "3") int pageSize,
+                                             @RequestParam(required = false) String cursor) {
+        return employeeService.searchEmployees(q, cursor, pageSize);
+    }
+
+    @PostMapping("/employees/batch-get")
+    @Operation(
+            summary = "Get employees by ids in request order, unknown ids come back as null entries",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> getEmployeesByIds(@RequestBody @Valid BatchGetRequest batchGetRequest) {
+        return employeeService.getEmployeesByIds(batchGetRequest.getIds());
     }
 
     @GetMapping("/employees/{employeeId}")
     @Operation(
-            summary = "Get employee by id",
+            summary = "Get employee by id, expand=cars embeds the employee's cars",
             responses = {
                     @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
                     @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content()),
                     @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
             }
     )
-    public Employee getEmployeeById(@PathVariable Long employeeId) {
-        return employeeService.getEmployeeById(employeeId);
+    public Employee getEmployeeById(@PathVariable Long employeeId,
+                                    @RequestParam(required = false) List<String> expand) {
+        return employeeService.getEmployeeById(employeeId, expand);
     }
 
     @GetMapping("/departments/{departmentId}/employees")
@@ -95,6 +160,33 @@ public class EmployeeController {
         return employeeService.saveEmployee(employeeRequest);
     }
 
+    @PostMapping("/employees/bulk")
+    @Operation(
+            summary = "Save employees in one insert, reporting the outcome of every item in request order",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> saveEmployees(@RequestBody @Valid BulkCreateRequest<CreateEmployeeRequest> bulkCreateRequest) {
+        return employeeService.saveEmployees(bulkCreateRequest.getItems());
+    }
+
+    @PatchMapping("/employees/bulk")
+    @Operation(
+            summary = "Partially update employees, per item or one change set for every employee matching a filter, in one update",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content()),
+                    @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
+            }
+    )
+    public ResponseEntity<?> updateEmployees(@RequestBody @Valid BulkUpdateRequest<EmployeeFilter, UpdateEmployeeRequest> bulkUpdateRequest) {
+        return employeeService.updateEmployees(bulkUpdateRequest);
+    }
+
     @PutMapping("/employees/{employeeId}")
     @Operation(
             summary = "Update employee model",
@@ -121,4 +213,17 @@ public class EmployeeController {
     public void deleteEmployeeById(@PathVariable Long employeeId) {
         employeeService.deleteEmployee(employeeId);
     }
+
+    @DeleteMapping("/employees")
+    @Operation(
+            summary = "Delete employees by ids in one statement, employees that still have cars are kept and reported as failed",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content())
+            }
+    )
+    public ResponseEntity<?> deleteEmployeesByIds(@RequestBody @Valid BatchDeleteRequest batchDeleteRequest) {
+        return employeeService.deleteEmployees(batchDeleteRequest.getIds());
+    }
 }
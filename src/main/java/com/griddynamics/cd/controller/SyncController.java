@@ -0,0 +1,44 @@
+package com.griddynamics.cd.controller;
+
+import com.griddynamics.cd.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+@RestController
+@RequestMapping("/sync")
+@AllArgsConstructor
+@Validated
+public class SyncController {
+
+    private final SyncService syncService;
+
+    @GetMapping("/{entity}")
+    @Operation(
+            summary = "Get rows created, updated or deleted since the given token, oldest change first",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "400", description = "Bad request", content = @Content()),
+                    @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content()),
+                    @ApiResponse(responseCode = "404", description = "Not found", content = @Content())
+            }
+    )
+    public ResponseEntity<?> getChanges(@Parameter(schema = @Schema(allowableValues = {"cars", "employees", "departments"}))
+                                        @PathVariable String entity,
+                                        @Parameter(description = "nextToken of the previous sync, a full sync when omitted")
+                                        @RequestParam(required = false) String since,
+                                        @Min(value = 1, message = "Page size should be at least 1")
+                                        @Max(value = 1000, message = "Page size should be at most 1000")
+                                        @RequestParam(defaultValue = "100") int pageSize) {
+        return syncService.getChanges(entity, since, pageSize);
+    }
+}
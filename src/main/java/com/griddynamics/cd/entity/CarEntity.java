@@ -2,8 +2,11 @@ package com.griddynamics.cd.entity;
 
 import com.griddynamics.cd.model.Color;
 import lombok.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "car")
@@ -27,6 +30,21 @@ public class CarEntity {
     @Column(name = "color", nullable = false)
     @Enumerated(EnumType.STRING)
     private Color color;
+    /**
+     * Both timestamps are stamped by the database on every write, whatever the statement sets.
+     */
+    @Generated(GenerationTime.INSERT)
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+    @Generated(GenerationTime.ALWAYS)
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+    /**
+     * Id of the transaction that wrote the row last, the order the sync reads changes in.
+     */
+    @Generated(GenerationTime.ALWAYS)
+    @Column(name = "write_txid", insertable = false, updatable = false)
+    private Long writeTxid;
     @ManyToOne
     @JoinColumn(name = "employee_id")
     private EmployeeEntity employee;
@@ -1,9 +1,12 @@
 package com.griddynamics.cd.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
 
 import javax.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -29,6 +32,21 @@ public class EmployeeEntity {
     private String address;
     @Column(name = "phone_number")
     private String phoneNumber;
+    /**
+     * Both timestamps are stamped by the database on every write, whatever the statement sets.
+     */
+    @Generated(GenerationTime.INSERT)
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+    @Generated(GenerationTime.ALWAYS)
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+    /**
+     * Id of the transaction that wrote the row last, the order the sync reads changes in.
+     */
+    @Generated(GenerationTime.ALWAYS)
+    @Column(name = "write_txid", insertable = false, updatable = false)
+    private Long writeTxid;
     @ManyToOne
     @JoinColumn(name = "department_id")
     private DepartmentEntity department;
@@ -0,0 +1,43 @@
+package com.griddynamics.cd.entity;
+
+import lombok.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.annotations.GenerationTime;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted row, kept so that sync clients learn about deletes.
+ */
+@Entity
+@Table(name = "tombstone")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TombstoneEntity {
+
+    public static final String CAR = "car";
+    public static final String EMPLOYEE = "employee";
+    public static final String DEPARTMENT = "department";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    @Column(name = "entity_type", nullable = false)
+    private String entityType;
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    @Generated(GenerationTime.INSERT)
+    @Column(name = "deleted_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
+    /**
+     * Id of the deleting transaction, the order the sync reads tombstones in.
+     */
+    @Generated(GenerationTime.INSERT)
+    @Column(name = "write_txid", insertable = false, updatable = false)
+    private Long writeTxid;
+}
@@ -0,0 +1,8 @@
+package com.griddynamics.cd.exception;
+
+public class EmptyFilterException extends RuntimeException {
+
+    public EmptyFilterException() {
+        super("Filter must restrict at least one field");
+    }
+}
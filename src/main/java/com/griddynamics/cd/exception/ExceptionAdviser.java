@@ -1,10 +1,12 @@
 package com.griddynamics.cd.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -20,6 +22,7 @@ import javax.validation.ConstraintViolationException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -65,6 +68,62 @@ public class ExceptionAdviser extends ResponseEntityExceptionHandler {
         return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), null);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handleInvalidCursorException(InvalidCursorException ex) {
+        log.error("Failed to decode cursor {}", ex.getMessage());
+
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), null);
+    }
+
+    @ExceptionHandler(ExpandNotSupportedException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handleExpandNotSupportedException(ExpandNotSupportedException ex) {
+        log.error("Failed to expand {}", ex.getMessage());
+
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), null);
+    }
+
+    @ExceptionHandler(PerItemChangeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handlePerItemChangeException(PerItemChangeException ex) {
+        log.error("Rejected bulk change: {}", ex.getMessage());
+
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), null);
+    }
+
+    @ExceptionHandler(EmptyFilterException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handleEmptyFilterException(EmptyFilterException ex) {
+        log.error("Rejected bulk change: {}", ex.getMessage());
+
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), null);
+    }
+
+    @ExceptionHandler(SyncNotSupportedException.class)
+    @ResponseStatus(HttpStatus.NOT_IMPLEMENTED)
+    public ResponseEntity<Object> handleSyncNotSupportedException(SyncNotSupportedException ex) {
+        log.error("Rejected sync: {}", ex.getMessage());
+
+        return buildErrorResponse(ex.getMessage(), HttpStatus.NOT_IMPLEMENTED, LocalDateTime.now(), null);
+    }
+
+    @ExceptionHandler(VinNumberMismatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handleVinNumberMismatchException(VinNumberMismatchException ex) {
+        log.error("Rejected upsert: {}", ex.getMessage());
+
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), null);
+    }
+
+    @ExceptionHandler(ResultTooLargeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<Object> handleResultTooLargeException(ResultTooLargeException ex) {
+        log.error("Refused unbounded result {}", ex.getMessage());
+
+        return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), null);
+    }
+
     @ExceptionHandler(EntityExistsException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<Object> handleEntityExistsException(EntityExistsException ex) {
@@ -73,6 +132,22 @@ public class ExceptionAdviser extends ResponseEntityExceptionHandler {
         return buildErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), null);
     }
 
+    /**
+     * Duplicates are caught by unique indexes rather than checked up front; they get the same response as
+     * {@link EntityExistsException}. Other integrity violations are write conflicts.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<Object> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        Optional<EntityExistsException> entityExists = UniqueViolations.toEntityExists(ex);
+        if (entityExists.isPresent()) {
+            return handleEntityExistsException(entityExists.get());
+        }
+        log.error("Failed to write entity", ex);
+
+        return buildErrorResponse("Request conflicts with the current state of the data", HttpStatus.CONFLICT, LocalDateTime.now(), null);
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex, HttpHeaders headers,
@@ -88,6 +163,24 @@ public class ExceptionAdviser extends ResponseEntityExceptionHandler {
         return buildErrorResponse(msg[0] + ' ' + msg[1], HttpStatus.BAD_REQUEST, LocalDateTime.now(), validationErrors);
     }
 
+    /**
+     * Filters bound from query parameters, reported like constraint violations on plain request parameters.
+     */
+    @Override
+    protected ResponseEntity<Object> handleBindException(
+            BindException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
+        log.error("Failed to bind request parameters");
+
+        List<ErrorResponse.ValidationError> validationErrors = ex.getBindingResult().getFieldErrors().stream()
+                .map(val -> new ErrorResponse.ValidationError(val.getField(), val.getDefaultMessage()))
+                .collect(Collectors.toList());
+
+        StringBuilder builder = new StringBuilder();
+        validationErrors.forEach(error -> builder.append(" ").append(error.message()));
+
+        return buildErrorResponse(builder.toString(), HttpStatus.BAD_REQUEST, LocalDateTime.now(), validationErrors);
+    }
+
     @Override
     protected ResponseEntity<Object> handleHttpMessageNotReadable(
             HttpMessageNotReadableException ex, HttpHeaders headers, HttpStatus status, WebRequest request) {
@@ -0,0 +1,8 @@
+package com.griddynamics.cd.exception;
+
+public class ExpandNotSupportedException extends RuntimeException {
+
+    public ExpandNotSupportedException(String path) {
+        super("Expand " + path + " is not supported");
+    }
+}
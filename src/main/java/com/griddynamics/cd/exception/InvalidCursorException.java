@@ -0,0 +1,8 @@
+package com.griddynamics.cd.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("Cursor " + cursor + " is not valid for this request");
+    }
+}
@@ -0,0 +1,8 @@
+package com.griddynamics.cd.exception;
+
+public class PerItemChangeException extends RuntimeException {
+
+    public PerItemChangeException(String field) {
+        super("Field " + field + " can only be changed per item");
+    }
+}
@@ -0,0 +1,8 @@
+package com.griddynamics.cd.exception;
+
+public class ResultTooLargeException extends RuntimeException {
+
+    public ResultTooLargeException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,8 @@
+package com.griddynamics.cd.exception;
+
+public class SyncNotSupportedException extends RuntimeException {
+
+    public SyncNotSupportedException() {
+        super("Sync needs the change tracking triggers, which are only installed on PostgreSQL");
+    }
+}
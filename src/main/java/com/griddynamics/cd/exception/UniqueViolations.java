@@ -0,0 +1,42 @@
+package com.griddynamics.cd.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import javax.persistence.EntityExistsException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps a violated unique index back to the message of the check the service used to run before writing, so a
+ * duplicate value is reported the same way whether it loses the race or not.
+ */
+final class UniqueViolations {
+
+    private static final Map<String, String> FIELDS = Map.of(
+            "uq_department_email", "Department with %s email already exist",
+            "uq_employee_phone_number", "Employee with %s phone number already exist",
+            "uq_car_vin_number", "Car with %s vin number already exist");
+    private static final Pattern DUPLICATE_KEY = Pattern.compile("Key \\((.+?)\\)=\\((.*)\\) already exists");
+
+    private UniqueViolations() {
+    }
+
+    static Optional<EntityExistsException> toEntityExists(DataIntegrityViolationException ex) {
+        Throwable cause = ex.getCause();
+        while (cause != null && !(cause instanceof ConstraintViolationException)) {
+            cause = cause.getCause();
+        }
+        if (!(cause instanceof ConstraintViolationException violation) || violation.getConstraintName() == null) {
+            return Optional.empty();
+        }
+        String message = FIELDS.get(violation.getConstraintName());
+        if (message == null) {
+            return Optional.empty();
+        }
+        Matcher key = DUPLICATE_KEY.matcher(String.valueOf(violation.getSQLException().getMessage()));
+        return Optional.of(new EntityExistsException(String.format(message, key.find() ? key.group(2) : "this")));
+    }
+}
@@ -0,0 +1,8 @@
+package com.griddynamics.cd.exception;
+
+public class VinNumberMismatchException extends RuntimeException {
+
+    public VinNumberMismatchException(String pathVinNumber, String bodyVinNumber) {
+        super("Vin number " + bodyVinNumber + " in the body does not match " + pathVinNumber + " in the path");
+    }
+}
@@ -9,6 +9,7 @@ import org.mapstruct.*;
 @Mapper(componentModel = "spring")
 public interface DepartmentMapper {
 
+    @Mapping(target = "employees", ignore = true)
     Department toDepartmentModel(DepartmentEntity entity);
 
     DepartmentEntity toDepartmentEntity(CreateDepartmentRequest request);
@@ -10,6 +10,7 @@ import org.mapstruct.*;
 public interface EmployeeMapper {
 
     @Mapping(target = "departmentId", source = "department.id")
+    @Mapping(target = "cars", ignore = true)
     Employee toEmployeeModel(EmployeeEntity entity);
 
     EmployeeEntity toEmployeeEntity(CreateEmployeeRequest request);
@@ -0,0 +1,24 @@
+package com.griddynamics.cd.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchDeleteRequest {
+
+    public static final int MAX_IDS = 5000;
+
+    @NotEmpty
+    @Size(max = MAX_IDS, message = "Must contain at most " + MAX_IDS + " ids")
+    private List<@NotNull Long> ids;
+}
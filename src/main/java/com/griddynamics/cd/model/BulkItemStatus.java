@@ -0,0 +1,9 @@
+package com.griddynamics.cd.model;
+
+public enum BulkItemStatus {
+
+    CREATED,
+    UPDATED,
+    DELETED,
+    FAILED
+}
@@ -0,0 +1,13 @@
+package com.griddynamics.cd.model;
+
+/**
+ * How a paged filter response reports its totals.
+ * EXACT counts every matching row, ESTIMATE reads the planner row estimate and NONE only reports whether
+ * a next page exists.
+ */
+public enum CountMode {
+
+    EXACT,
+    ESTIMATE,
+    NONE
+}
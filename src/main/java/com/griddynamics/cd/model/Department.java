@@ -1,10 +1,13 @@
 package com.griddynamics.cd.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -16,4 +19,9 @@ public class Department {
     private String email;
     private String description;
     private DepartmentType departmentType;
+    /**
+     * Only present when expanded.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Employee> employees;
 }
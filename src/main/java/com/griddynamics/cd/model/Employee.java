@@ -1,11 +1,13 @@
 package com.griddynamics.cd.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -20,4 +22,9 @@ public class Employee {
     private String address;
     private String phoneNumber;
     private Long departmentId;
+    /**
+     * Only present when expanded.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Car> cars;
 }
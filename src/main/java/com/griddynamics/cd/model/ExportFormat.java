@@ -0,0 +1,18 @@
+package com.griddynamics.cd.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Body format of a streamed export.
+ * NDJSON writes one JSON object per line and CSV writes a header line followed by one line per row.
+ */
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String mediaType;
+}
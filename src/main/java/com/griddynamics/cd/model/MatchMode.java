@@ -0,0 +1,13 @@
+package com.griddynamics.cd.model;
+
+/**
+ * How string filters compare their values.
+ * EXACT is case-sensitive equality, CI is case-insensitive equality and PREFIX matches values that start with
+ * one of the given strings.
+ */
+public enum MatchMode {
+
+    EXACT,
+    CI,
+    PREFIX
+}
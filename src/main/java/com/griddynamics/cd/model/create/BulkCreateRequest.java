@@ -0,0 +1,25 @@
+package com.griddynamics.cd.model.create;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkCreateRequest<T> {
+
+    public static final int MAX_ITEMS = 5000;
+
+    @NotEmpty
+    @Size(max = MAX_ITEMS, message = "Must contain at most " + MAX_ITEMS + " items")
+    private List<@Valid @NotNull T> items;
+}
@@ -0,0 +1,48 @@
+package com.griddynamics.cd.model.filter;
+
+import com.griddynamics.cd.annotation.NotEmptyOrNull;
+import com.griddynamics.cd.model.Color;
+import com.griddynamics.cd.model.MatchMode;
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CarFilter {
+
+    @NotEmptyOrNull(message = "Manufacturer list should be null or not empty")
+    private List<String> manufacturers;
+    @NotEmptyOrNull(message = "Model list should be null or not empty")
+    private List<String> models;
+    @NotEmptyOrNull(message = "Vin number list should be null or not empty")
+    private List<String> vinNumbers;
+    @NotEmptyOrNull(message = "Employee id list should be null or not empty")
+    private List<Long> employeeIds;
+    @NotEmptyOrNull(message = "Department id list should be null or not empty")
+    private List<Long> departmentIds;
+    @NotEmptyOrNull(message = "Color list should be null or not empty")
+    private List<Color> colors;
+    @NotEmptyOrNull(message = "Excluded manufacturer list should be null or not empty")
+    private List<String> excludeManufacturers;
+    @NotEmptyOrNull(message = "Excluded model list should be null or not empty")
+    private List<String> excludeModels;
+    @NotEmptyOrNull(message = "Excluded vin number list should be null or not empty")
+    private List<String> excludeVinNumbers;
+    @NotEmptyOrNull(message = "Excluded employee id list should be null or not empty")
+    private List<Long> excludeEmployeeIds;
+    @NotEmptyOrNull(message = "Excluded department id list should be null or not empty")
+    private List<Long> excludeDepartmentIds;
+    @NotEmptyOrNull(message = "Excluded color list should be null or not empty")
+    private List<Color> excludeColors;
+    private Long idFrom;
+    private Long idTo;
+    @Parameter(description = "How the manufacturer and model filters match, EXACT when omitted")
+    private MatchMode matchMode;
+}
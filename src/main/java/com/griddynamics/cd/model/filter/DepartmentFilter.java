@@ -0,0 +1,40 @@
+package com.griddynamics.cd.model.filter;
+
+import com.griddynamics.cd.annotation.NotEmptyOrNull;
+import com.griddynamics.cd.model.DepartmentType;
+import com.griddynamics.cd.model.MatchMode;
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DepartmentFilter {
+
+    @NotEmptyOrNull(message = "Name list should be null or not empty")
+    private List<String> names;
+    @NotEmptyOrNull(message = "Email list should be null or not empty")
+    private List<String> emails;
+    @NotEmptyOrNull(message = "Description list should be null or not empty")
+    private List<String> descriptions;
+    @NotEmptyOrNull(message = "Department type list should be null or not empty")
+    private List<DepartmentType> departmentTypes;
+    @NotEmptyOrNull(message = "Excluded name list should be null or not empty")
+    private List<String> excludeNames;
+    @NotEmptyOrNull(message = "Excluded email list should be null or not empty")
+    private List<String> excludeEmails;
+    @NotEmptyOrNull(message = "Excluded description list should be null or not empty")
+    private List<String> excludeDescriptions;
+    @NotEmptyOrNull(message = "Excluded department type list should be null or not empty")
+    private List<DepartmentType> excludeDepartmentTypes;
+    private Long idFrom;
+    private Long idTo;
+    @Parameter(description = "How the name and email filters match, EXACT when omitted")
+    private MatchMode matchMode;
+}
@@ -0,0 +1,55 @@
+package com.griddynamics.cd.model.filter;
+
+import com.griddynamics.cd.annotation.NotEmptyOrNull;
+import com.griddynamics.cd.model.MatchMode;
+import io.swagger.v3.oas.annotations.Parameter;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmployeeFilter {
+
+    @NotEmptyOrNull(message = "First name list should be null or not empty")
+    private List<String> firstNames;
+    @NotEmptyOrNull(message = "Last name list should be null or not empty")
+    private List<String> lastNames;
+    @NotEmptyOrNull(message = "Birthday list should be null or not empty")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private List<LocalDate> birthdays;
+    @NotEmptyOrNull(message = "Address list should be null or not empty")
+    private List<String> addresses;
+    @NotEmptyOrNull(message = "Phone number list should be null or not empty")
+    private List<String> phoneNumbers;
+    @NotEmptyOrNull(message = "Department id list should be null or not empty")
+    private List<Long> departmentIds;
+    @NotEmptyOrNull(message = "Excluded first name list should be null or not empty")
+    private List<String> excludeFirstNames;
+    @NotEmptyOrNull(message = "Excluded last name list should be null or not empty")
+    private List<String> excludeLastNames;
+    @NotEmptyOrNull(message = "Excluded birthday list should be null or not empty")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private List<LocalDate> excludeBirthdays;
+    @NotEmptyOrNull(message = "Excluded address list should be null or not empty")
+    private List<String> excludeAddresses;
+    @NotEmptyOrNull(message = "Excluded phone number list should be null or not empty")
+    private List<String> excludePhoneNumbers;
+    @NotEmptyOrNull(message = "Excluded department id list should be null or not empty")
+    private List<Long> excludeDepartmentIds;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate birthdayFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate birthdayTo;
+    private Long idFrom;
+    private Long idTo;
+    @Parameter(description = "How the last name filter matches, EXACT when omitted")
+    private MatchMode matchMode;
+}
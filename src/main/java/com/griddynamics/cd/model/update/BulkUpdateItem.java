@@ -0,0 +1,24 @@
+package com.griddynamics.cd.model.update;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkUpdateItem<T> {
+
+    @NotNull
+    @Positive
+    private Long id;
+    @NotNull
+    @Valid
+    private T changes;
+}
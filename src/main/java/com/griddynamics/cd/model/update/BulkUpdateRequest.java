@@ -0,0 +1,42 @@
+package com.griddynamics.cd.model.update;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Either {@code items}, each with its own changes, or one set of {@code changes} applied to every row matching
+ * {@code filter}. Fields left {@code null} in a change set are not changed. A filter has to restrict at least one
+ * field, so a request can never change every row.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkUpdateRequest<F, T> {
+
+    public static final int MAX_ITEMS = 5000;
+
+    @Size(min = 1, max = MAX_ITEMS, message = "Must contain between 1 and " + MAX_ITEMS + " items")
+    private List<@Valid @NotNull BulkUpdateItem<T>> items;
+    @Valid
+    private F filter;
+    @Valid
+    private T changes;
+
+    @JsonIgnore
+    @AssertTrue(message = "Pass either items, or a filter with changes")
+    public boolean isItemsOrFilter() {
+        return items != null
+                ? filter == null && changes == null
+                : filter != null && changes != null;
+    }
+}
@@ -0,0 +1,117 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.CarEntity;
+import com.griddynamics.cd.model.filter.CarFilter;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
+import com.griddynamics.cd.repository.query.FacetCount;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import com.griddynamics.cd.repository.query.Upserted;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public interface CarRepositoryCustom {
+
+    boolean existsByColumnName(String columnName);
+
+    Page<CarEntity> findAllByFilter(CarFilter filter, Pageable pageable);
+
+    Slice<CarEntity> findSliceByFilter(CarFilter filter, Pageable pageable);
+
+    KeysetSlice<CarEntity> findAllByFilterAfterCursor(CarFilter filter, String orderBy, Sort.Direction order, String cursor, int pageSize);
+
+    /**
+     * Projections of the list queries above: only the given model fields, plus id, each row keyed by field name.
+     */
+    Page<Map<String, Object>> findAllByFilter(CarFilter filter, List<String> fields, Pageable pageable);
+
+    Slice<Map<String, Object>> findSliceByFilter(CarFilter filter, List<String> fields, Pageable pageable);
+
+    KeysetSlice<Map<String, Object>> findAllByFilterAfterCursor(CarFilter filter, List<String> fields, String orderBy, Sort.Direction order, String cursor, int pageSize);
+
+    /**
+     * Rows created or updated after the position of {@code cursor} in (write_txid, id) order, written by
+     * transactions that have finished. The returned cursor points at the last row read, or is {@code cursor} itself
+     * when nothing changed.
+     */
+    KeysetSlice<CarEntity> findAllChangedAfter(String cursor, int pageSize);
+
+    KeysetSlice<CarEntity> findAllBySimilarity(String text, String cursor, int pageSize);
+
+    long countByFilter(CarFilter filter);
+
+    long estimateCountByFilter(CarFilter filter);
+
+    /**
+     * Counts of matching cars per color, manufacturer and employee_id, keyed by column name.
+     */
+    Map<String, List<FacetCount>> countFacetsByFilter(CarFilter filter);
+
+    List<String> explainByFilter(CarFilter filter);
+
+    List<String> explainByFilter(CarFilter filter, Pageable pageable);
+
+    List<String> explainByFilter(CarFilter filter, String orderBy, Sort.Direction order, int pageSize);
+
+    List<String> explainBySimilarity(String text, int pageSize);
+
+    /**
+     * Rows with the given ids in id order, read in one query; associations only carry their id.
+     */
+    List<CarEntity> findAllByIds(List<Long> ids);
+
+    /**
+     * Inserts all given rows in one statement, ids are returned in argument order. Must run inside a transaction.
+     */
+    List<Long> insertAll(List<CarEntity> cars);
+
+    /**
+     * Id of the car owning each of the given VINs that is taken, read in one query.
+     */
+    Map<String, Long> findIdsByVinNumbers(List<String> vinNumbers);
+
+    /**
+     * Deletes the given rows in one statement and writes their tombstones. Must run inside a transaction.
+     */
+    BulkDeleteResult deleteAllByIds(List<Long> ids);
+
+    /**
+     * Inserts the car, or replaces every written column of the car with the same VIN, in one statement.
+     * Must run inside a transaction.
+     */
+    Upserted<CarEntity> upsertByVinNumber(CarEntity car);
+
+    /**
+     * Inserts or replaces all given cars by VIN in one statement; ids are returned in argument order. VINs must be
+     * unique within the batch. Must run inside a transaction.
+     */
+    List<Upserted<Long>> upsertAllByVinNumber(List<CarEntity> cars);
+
+    /**
+     * Updates every given row in one statement; {@code null} values leave their column unchanged. Returns the ids
+     * of the rows that exist. Must run inside a transaction.
+     */
+    List<Long> updateAll(List<CarEntity> cars);
+
+    /**
+     * Copies the non-null values of {@code changes} onto every matching row in one statement and returns the
+     * number of updated rows. Must run inside a transaction.
+     */
+    int updateAllByFilter(CarFilter filter, CarEntity changes);
+
+    /**
+     * Every matching row in id order, read through a forward-only cursor; associations only carry their id.
+     */
+    Stream<CarEntity> streamByFilter(CarFilter filter);
+
+    /**
+     * Every matching row in id order, handed over in keyset chunks; associations only carry their id.
+     */
+    void forEachChunkByFilter(CarFilter filter, int chunkSize, Consumer<List<CarEntity>> action);
+}
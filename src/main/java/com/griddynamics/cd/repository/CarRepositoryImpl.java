@@ -0,0 +1,242 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.CarEntity;
+import com.griddynamics.cd.entity.EmployeeEntity;
+import com.griddynamics.cd.model.Color;
+import com.griddynamics.cd.model.filter.CarFilter;
+import com.griddynamics.cd.repository.query.BulkDelete;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
+import com.griddynamics.cd.repository.query.BulkInsert;
+import com.griddynamics.cd.repository.query.BulkUpdate;
+import com.griddynamics.cd.repository.query.BulkUpsert;
+import com.griddynamics.cd.repository.query.FacetCount;
+import com.griddynamics.cd.repository.query.FilteredQuery;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import com.griddynamics.cd.repository.query.SearchQuery;
+import com.griddynamics.cd.repository.query.SortableColumnRegistry;
+import com.griddynamics.cd.repository.query.Upserted;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CarRepositoryImpl implements CarRepositoryCustom {
+
+    /**
+     * Must stay identical to the expression of the idx_car_search_trgm index.
+     */
+    private static final String SEARCH_DOCUMENT = "COALESCE(c.manufacturer, '') || ' ' || COALESCE(c.model, '')";
+
+    private static final List<String> FACET_COLUMNS = List.of("color", "manufacturer", "employee_id");
+    /**
+     * Model field name to column, for projections.
+     */
+    private static final Map<String, String> FIELD_COLUMNS = Map.of(
+            "id", "id",
+            "manufacturer", "manufacturer",
+            "model", "model",
+            "vinNumber", "vin_number",
+            "employeeId", "employee_id",
+            "color", "color");
+    private static final List<String> WRITE_COLUMNS = List.of("manufacturer", "model", "vin_number", "employee_id", "color");
+    private static final List<String> EXPORT_COLUMNS = List.of("id", "manufacturer", "model", "vin_number", "employee_id", "color");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private SortableColumnRegistry sortableColumnRegistry;
+
+    @Override
+    public boolean existsByColumnName(String columnName) {
+        return sortableColumnRegistry.isSortable(CarEntity.class, columnName);
+    }
+
+    @Override
+    public Page<CarEntity> findAllByFilter(CarFilter filter, Pageable pageable) {
+        return filteredQuery(filter).page(pageable);
+    }
+
+    @Override
+    public Slice<CarEntity> findSliceByFilter(CarFilter filter, Pageable pageable) {
+        return filteredQuery(filter).slice(pageable);
+    }
+
+    @Override
+    public KeysetSlice<CarEntity> findAllByFilterAfterCursor(CarFilter filter, String orderBy, Sort.Direction order, String cursor, int pageSize) {
+        return filteredQuery(filter).fetch(orderBy, order, cursor, pageSize);
+    }
+
+    @Override
+    public Page<Map<String, Object>> findAllByFilter(CarFilter filter, List<String> fields, Pageable pageable) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).page(pageable);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findSliceByFilter(CarFilter filter, List<String> fields, Pageable pageable) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).slice(pageable);
+    }
+
+    @Override
+    public KeysetSlice<Map<String, Object>> findAllByFilterAfterCursor(CarFilter filter, List<String> fields, String orderBy, Sort.Direction order, String cursor, int pageSize) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).fetch(orderBy, order, cursor, pageSize);
+    }
+
+    @Override
+    public KeysetSlice<CarEntity> findAllChangedAfter(String cursor, int pageSize) {
+        return new FilteredQuery<>(entityManager, CarEntity.class,
+                        sortableColumnRegistry.columns(CarEntity.class), "car", "c")
+                .committed("write_txid")
+                .follow("write_txid", Sort.Direction.ASC, cursor, pageSize, EXPORT_COLUMNS, CarRepositoryImpl::toCarEntity);
+    }
+
+    @Override
+    public KeysetSlice<CarEntity> findAllBySimilarity(String text, String cursor, int pageSize) {
+        return searchQuery().fetch(text, cursor, pageSize, EXPORT_COLUMNS, CarRepositoryImpl::toCarEntity);
+    }
+
+    @Override
+    public long countByFilter(CarFilter filter) {
+        return filteredQuery(filter).count();
+    }
+
+    @Override
+    public long estimateCountByFilter(CarFilter filter) {
+        return filteredQuery(filter).estimateCount();
+    }
+
+    @Override
+    public Map<String, List<FacetCount>> countFacetsByFilter(CarFilter filter) {
+        return filteredQuery(filter).facets(FACET_COLUMNS);
+    }
+
+    @Override
+    public List<String> explainByFilter(CarFilter filter) {
+        return filteredQuery(filter).explain();
+    }
+
+    @Override
+    public List<String> explainByFilter(CarFilter filter, Pageable pageable) {
+        return filteredQuery(filter).explain(pageable);
+    }
+
+    @Override
+    public List<String> explainByFilter(CarFilter filter, String orderBy, Sort.Direction order, int pageSize) {
+        return filteredQuery(filter).explain(orderBy, order, pageSize);
+    }
+
+    @Override
+    public List<String> explainBySimilarity(String text, int pageSize) {
+        return searchQuery().explain(text, pageSize, EXPORT_COLUMNS);
+    }
+
+    @Override
+    public List<CarEntity> findAllByIds(List<Long> ids) {
+        return new FilteredQuery<>(entityManager, CarEntity.class,
+                        sortableColumnRegistry.columns(CarEntity.class), "car", "c")
+                .anyOf("id", ids)
+                .rows(EXPORT_COLUMNS, CarRepositoryImpl::toCarEntity);
+    }
+
+    @Override
+    public List<Long> insertAll(List<CarEntity> cars) {
+        return new BulkInsert<CarEntity>(entityManager, sortableColumnRegistry.columns(CarEntity.class), "car")
+                .insert(WRITE_COLUMNS, cars);
+    }
+
+    @Override
+    public Map<String, Long> findIdsByVinNumbers(List<String> vinNumbers) {
+        return new FilteredQuery<>(entityManager, CarEntity.class,
+                        sortableColumnRegistry.columns(CarEntity.class), "car", "c")
+                .anyOf("vin_number", vinNumbers)
+                .rows(List.of("id", "vin_number"), row -> Map.entry((String) row[1], (Long) row[0]))
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    @Override
+    public BulkDeleteResult deleteAllByIds(List<Long> ids) {
+        return new BulkDelete(entityManager, sortableColumnRegistry.columns(CarEntity.class), "car")
+                .delete(ids);
+    }
+
+    @Override
+    public Upserted<CarEntity> upsertByVinNumber(CarEntity car) {
+        return vinUpsert().upsert(WRITE_COLUMNS, EXPORT_COLUMNS, CarRepositoryImpl::toCarEntity, List.of(car))
+                .get(0);
+    }
+
+    @Override
+    public List<Upserted<Long>> upsertAllByVinNumber(List<CarEntity> cars) {
+        return vinUpsert().upsert(WRITE_COLUMNS, List.of("id"), row -> (Long) row[0], cars);
+    }
+
+    @Override
+    public List<Long> updateAll(List<CarEntity> cars) {
+        return new BulkUpdate<CarEntity>(entityManager, sortableColumnRegistry.columns(CarEntity.class), "car")
+                .update(WRITE_COLUMNS, cars);
+    }
+
+    @Override
+    public int updateAllByFilter(CarFilter filter, CarEntity changes) {
+        return filteredQuery(filter).update(WRITE_COLUMNS, changes);
+    }
+
+    @Override
+    public Stream<CarEntity> streamByFilter(CarFilter filter) {
+        return filteredQuery(filter).stream(EXPORT_COLUMNS, CarRepositoryImpl::toCarEntity);
+    }
+
+    @Override
+    public void forEachChunkByFilter(CarFilter filter, int chunkSize, Consumer<List<CarEntity>> action) {
+        filteredQuery(filter).forEachChunk(EXPORT_COLUMNS, CarRepositoryImpl::toCarEntity, chunkSize, action);
+    }
+
+    /**
+     * Entity from an {@link #EXPORT_COLUMNS} row; associations only carry their id.
+     */
+    private static CarEntity toCarEntity(Object[] row) {
+        return CarEntity.builder()
+                .id((Long) row[0])
+                .manufacturer((String) row[1])
+                .model((String) row[2])
+                .vinNumber((String) row[3])
+                .employee(row[4] == null ? null : EmployeeEntity.builder().id((Long) row[4]).build())
+                .color(Color.valueOf((String) row[5]))
+                .build();
+    }
+
+    private BulkUpsert<CarEntity> vinUpsert() {
+        return new BulkUpsert<>(entityManager, sortableColumnRegistry.columns(CarEntity.class), "car", "vin_number");
+    }
+
+    private SearchQuery searchQuery() {
+        return new SearchQuery(entityManager, sortableColumnRegistry.columns(CarEntity.class), "car", "c", SEARCH_DOCUMENT);
+    }
+
+    private FilteredQuery<CarEntity> filteredQuery(CarFilter filter) {
+        return new FilteredQuery<>(entityManager, CarEntity.class,
+                        sortableColumnRegistry.columns(CarEntity.class), "car", "c")
+                .anyOf("manufacturer", filter.getManufacturers(), filter.getMatchMode())
+                .anyOf("model", filter.getModels(), filter.getMatchMode())
+                .anyOf("vin_number", filter.getVinNumbers())
+                .anyOf("employee_id", filter.getEmployeeIds())
+                .anyOfReferenced("employee_id", "employee", "department_id", filter.getDepartmentIds())
+                .anyOf("color", filter.getColors())
+                .noneOf("manufacturer", filter.getExcludeManufacturers())
+                .noneOf("model", filter.getExcludeModels())
+                .noneOf("vin_number", filter.getExcludeVinNumbers())
+                .noneOf("employee_id", filter.getExcludeEmployeeIds())
+                .noneOfReferenced("employee_id", "employee", "department_id", filter.getExcludeDepartmentIds())
+                .noneOf("color", filter.getExcludeColors())
+                .between("id", filter.getIdFrom(), filter.getIdTo());
+    }
+}
@@ -0,0 +1,81 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.DepartmentEntity;
+import com.griddynamics.cd.model.filter.DepartmentFilter;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public interface DepartmentRepositoryCustom {
+
+    boolean existsByColumnName(String columnName);
+
+    Page<DepartmentEntity> findAllByFilter(DepartmentFilter filter, Pageable pageable);
+
+    Slice<DepartmentEntity> findSliceByFilter(DepartmentFilter filter, Pageable pageable);
+
+    KeysetSlice<DepartmentEntity> findAllByFilterAfterCursor(DepartmentFilter filter, String orderBy, Sort.Direction order, String cursor, int pageSize);
+
+    /**
+     * Projections of the list queries above: only the given model fields, plus id, each row keyed by field name.
+     */
+    Page<Map<String, Object>> findAllByFilter(DepartmentFilter filter, List<String> fields, Pageable pageable);
+
+    Slice<Map<String, Object>> findSliceByFilter(DepartmentFilter filter, List<String> fields, Pageable pageable);
+
+    KeysetSlice<Map<String, Object>> findAllByFilterAfterCursor(DepartmentFilter filter, List<String> fields, String orderBy, Sort.Direction order, String cursor, int pageSize);
+
+    /**
+     * Rows created or updated after the position of {@code cursor} in (write_txid, id) order, written by
+     * transactions that have finished. The returned cursor points at the last row read, or is {@code cursor} itself
+     * when nothing changed.
+     */
+    KeysetSlice<DepartmentEntity> findAllChangedAfter(String cursor, int pageSize);
+
+    long countByFilter(DepartmentFilter filter);
+
+    long estimateCountByFilter(DepartmentFilter filter);
+
+    List<String> explainByFilter(DepartmentFilter filter);
+
+    List<String> explainByFilter(DepartmentFilter filter, Pageable pageable);
+
+    /**
+     * Rows with the given ids in id order, read in one query; associations only carry their id.
+     */
+    List<DepartmentEntity> findAllByIds(List<Long> ids);
+
+    /**
+     * Inserts all given rows in one statement, ids are returned in argument order. Must run inside a transaction.
+     */
+    List<Long> insertAll(List<DepartmentEntity> departments);
+
+    /**
+     * Deletes the given rows in one statement, skipping those still referenced, and writes their tombstones.
+     * Must run inside a transaction.
+     */
+    BulkDeleteResult deleteAllByIds(List<Long> ids);
+
+    /**
+     * Those of the given emails that are already taken, read in one query.
+     */
+    List<String> findExistingEmails(List<String> emails);
+
+    /**
+     * Every matching row in id order, read through a forward-only cursor; associations only carry their id.
+     */
+    Stream<DepartmentEntity> streamByFilter(DepartmentFilter filter);
+
+    /**
+     * Every matching row in id order, handed over in keyset chunks; associations only carry their id.
+     */
+    void forEachChunkByFilter(DepartmentFilter filter, int chunkSize, Consumer<List<DepartmentEntity>> action);
+}
@@ -0,0 +1,172 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.DepartmentEntity;
+import com.griddynamics.cd.model.DepartmentType;
+import com.griddynamics.cd.model.filter.DepartmentFilter;
+import com.griddynamics.cd.repository.query.BulkDelete;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
+import com.griddynamics.cd.repository.query.BulkInsert;
+import com.griddynamics.cd.repository.query.FilteredQuery;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import com.griddynamics.cd.repository.query.SortableColumnRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class DepartmentRepositoryImpl implements DepartmentRepositoryCustom {
+
+    /**
+     * Model field name to column, for projections.
+     */
+    private static final Map<String, String> FIELD_COLUMNS = Map.of(
+            "id", "id",
+            "name", "name",
+            "email", "email",
+            "description", "description",
+            "departmentType", "department_type");
+    private static final List<String> WRITE_COLUMNS = List.of("name", "email", "description", "department_type");
+    private static final List<String> EXPORT_COLUMNS = List.of("id", "name", "email", "description", "department_type");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private SortableColumnRegistry sortableColumnRegistry;
+
+    @Override
+    public boolean existsByColumnName(String columnName) {
+        return sortableColumnRegistry.isSortable(DepartmentEntity.class, columnName);
+    }
+
+    @Override
+    public Page<DepartmentEntity> findAllByFilter(DepartmentFilter filter, Pageable pageable) {
+        return filteredQuery(filter).page(pageable);
+    }
+
+    @Override
+    public Slice<DepartmentEntity> findSliceByFilter(DepartmentFilter filter, Pageable pageable) {
+        return filteredQuery(filter).slice(pageable);
+    }
+
+    @Override
+    public KeysetSlice<DepartmentEntity> findAllByFilterAfterCursor(DepartmentFilter filter, String orderBy, Sort.Direction order, String cursor, int pageSize) {
+        return filteredQuery(filter).fetch(orderBy, order, cursor, pageSize);
+    }
+
+    @Override
+    public Page<Map<String, Object>> findAllByFilter(DepartmentFilter filter, List<String> fields, Pageable pageable) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).page(pageable);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findSliceByFilter(DepartmentFilter filter, List<String> fields, Pageable pageable) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).slice(pageable);
+    }
+
+    @Override
+    public KeysetSlice<Map<String, Object>> findAllByFilterAfterCursor(DepartmentFilter filter, List<String> fields, String orderBy, Sort.Direction order, String cursor, int pageSize) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).fetch(orderBy, order, cursor, pageSize);
+    }
+
+    @Override
+    public KeysetSlice<DepartmentEntity> findAllChangedAfter(String cursor, int pageSize) {
+        return new FilteredQuery<>(entityManager, DepartmentEntity.class,
+                        sortableColumnRegistry.columns(DepartmentEntity.class), "department", "d")
+                .committed("write_txid")
+                .follow("write_txid", Sort.Direction.ASC, cursor, pageSize, EXPORT_COLUMNS, DepartmentRepositoryImpl::toDepartmentEntity);
+    }
+
+    @Override
+    public long countByFilter(DepartmentFilter filter) {
+        return filteredQuery(filter).count();
+    }
+
+    @Override
+    public long estimateCountByFilter(DepartmentFilter filter) {
+        return filteredQuery(filter).estimateCount();
+    }
+
+    @Override
+    public List<String> explainByFilter(DepartmentFilter filter) {
+        return filteredQuery(filter).explain();
+    }
+
+    @Override
+    public List<String> explainByFilter(DepartmentFilter filter, Pageable pageable) {
+        return filteredQuery(filter).explain(pageable);
+    }
+
+    @Override
+    public List<DepartmentEntity> findAllByIds(List<Long> ids) {
+        return new FilteredQuery<>(entityManager, DepartmentEntity.class,
+                        sortableColumnRegistry.columns(DepartmentEntity.class), "department", "d")
+                .anyOf("id", ids)
+                .rows(EXPORT_COLUMNS, DepartmentRepositoryImpl::toDepartmentEntity);
+    }
+
+    @Override
+    public List<Long> insertAll(List<DepartmentEntity> departments) {
+        return new BulkInsert<DepartmentEntity>(entityManager, sortableColumnRegistry.columns(DepartmentEntity.class), "department")
+                .insert(WRITE_COLUMNS, departments);
+    }
+
+    @Override
+    public BulkDeleteResult deleteAllByIds(List<Long> ids) {
+        return new BulkDelete(entityManager, sortableColumnRegistry.columns(DepartmentEntity.class), "department")
+                .unlessReferencedBy("employee", "department_id")
+                .delete(ids);
+    }
+
+    @Override
+    public List<String> findExistingEmails(List<String> emails) {
+        return new FilteredQuery<>(entityManager, DepartmentEntity.class,
+                        sortableColumnRegistry.columns(DepartmentEntity.class), "department", "d")
+                .anyOf("email", emails)
+                .rows(List.of("id", "email"), row -> (String) row[1]);
+    }
+
+    @Override
+    public Stream<DepartmentEntity> streamByFilter(DepartmentFilter filter) {
+        return filteredQuery(filter).stream(EXPORT_COLUMNS, DepartmentRepositoryImpl::toDepartmentEntity);
+    }
+
+    @Override
+    public void forEachChunkByFilter(DepartmentFilter filter, int chunkSize, Consumer<List<DepartmentEntity>> action) {
+        filteredQuery(filter).forEachChunk(EXPORT_COLUMNS, DepartmentRepositoryImpl::toDepartmentEntity, chunkSize, action);
+    }
+
+    /**
+     * Entity from an {@link #EXPORT_COLUMNS} row; associations only carry their id.
+     */
+    private static DepartmentEntity toDepartmentEntity(Object[] row) {
+        return DepartmentEntity.builder()
+                .id((Long) row[0])
+                .name((String) row[1])
+                .email((String) row[2])
+                .description((String) row[3])
+                .departmentType(DepartmentType.valueOf((String) row[4]))
+                .build();
+    }
+
+    private FilteredQuery<DepartmentEntity> filteredQuery(DepartmentFilter filter) {
+        return new FilteredQuery<>(entityManager, DepartmentEntity.class,
+                        sortableColumnRegistry.columns(DepartmentEntity.class), "department", "d")
+                .anyOf("name", filter.getNames(), filter.getMatchMode())
+                .anyOf("email", filter.getEmails(), filter.getMatchMode())
+                .anyOf("description", filter.getDescriptions())
+                .anyOf("department_type", filter.getDepartmentTypes())
+                .noneOf("name", filter.getExcludeNames())
+                .noneOf("email", filter.getExcludeEmails())
+                .noneOf("description", filter.getExcludeDescriptions())
+                .noneOf("department_type", filter.getExcludeDepartmentTypes())
+                .between("id", filter.getIdFrom(), filter.getIdTo());
+    }
+}
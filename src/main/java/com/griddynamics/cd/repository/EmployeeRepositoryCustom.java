@@ -0,0 +1,99 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.EmployeeEntity;
+import com.griddynamics.cd.model.filter.EmployeeFilter;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public interface EmployeeRepositoryCustom {
+
+    boolean existsByColumnName(String columnName);
+
+    Page<EmployeeEntity> findAllByFilter(EmployeeFilter filter, Pageable pageable);
+
+    Slice<EmployeeEntity> findSliceByFilter(EmployeeFilter filter, Pageable pageable);
+
+    KeysetSlice<EmployeeEntity> findAllByFilterAfterCursor(EmployeeFilter filter, String orderBy, Sort.Direction order, String cursor, int pageSize);
+
+    /**
+     * Projections of the list queries above: only the given model fields, plus id, each row keyed by field name.
+     */
+    Page<Map<String, Object>> findAllByFilter(EmployeeFilter filter, List<String> fields, Pageable pageable);
+
+    Slice<Map<String, Object>> findSliceByFilter(EmployeeFilter filter, List<String> fields, Pageable pageable);
+
+    KeysetSlice<Map<String, Object>> findAllByFilterAfterCursor(EmployeeFilter filter, List<String> fields, String orderBy, Sort.Direction order, String cursor, int pageSize);
+
+    /**
+     * Rows created or updated after the position of {@code cursor} in (write_txid, id) order, written by
+     * transactions that have finished. The returned cursor points at the last row read, or is {@code cursor} itself
+     * when nothing changed.
+     */
+    KeysetSlice<EmployeeEntity> findAllChangedAfter(String cursor, int pageSize);
+
+    KeysetSlice<EmployeeEntity> findAllBySimilarity(String text, String cursor, int pageSize);
+
+    long countByFilter(EmployeeFilter filter);
+
+    long estimateCountByFilter(EmployeeFilter filter);
+
+    List<String> explainByFilter(EmployeeFilter filter);
+
+    List<String> explainByFilter(EmployeeFilter filter, Pageable pageable);
+
+    List<String> explainByFilter(EmployeeFilter filter, String orderBy, Sort.Direction order, int pageSize);
+
+    List<String> explainBySimilarity(String text, int pageSize);
+
+    /**
+     * Rows with the given ids in id order, read in one query; associations only carry their id.
+     */
+    List<EmployeeEntity> findAllByIds(List<Long> ids);
+
+    /**
+     * Inserts all given rows in one statement, ids are returned in argument order. Must run inside a transaction.
+     */
+    List<Long> insertAll(List<EmployeeEntity> employees);
+
+    /**
+     * Deletes the given rows in one statement, skipping those still referenced, and writes their tombstones.
+     * Must run inside a transaction.
+     */
+    BulkDeleteResult deleteAllByIds(List<Long> ids);
+
+    /**
+     * Id of the employee owning each of the given phone numbers that is taken, read in one query.
+     */
+    Map<String, Long> findIdsByPhoneNumbers(List<String> phoneNumbers);
+
+    /**
+     * Updates every given row in one statement; {@code null} values leave their column unchanged. Returns the ids
+     * of the rows that exist. Must run inside a transaction.
+     */
+    List<Long> updateAll(List<EmployeeEntity> employees);
+
+    /**
+     * Copies the non-null values of {@code changes} onto every matching row in one statement and returns the
+     * number of updated rows. Must run inside a transaction.
+     */
+    int updateAllByFilter(EmployeeFilter filter, EmployeeEntity changes);
+
+    /**
+     * Every matching row in id order, read through a forward-only cursor; associations only carry their id.
+     */
+    Stream<EmployeeEntity> streamByFilter(EmployeeFilter filter);
+
+    /**
+     * Every matching row in id order, handed over in keyset chunks; associations only carry their id.
+     */
+    void forEachChunkByFilter(EmployeeFilter filter, int chunkSize, Consumer<List<EmployeeEntity>> action);
+}
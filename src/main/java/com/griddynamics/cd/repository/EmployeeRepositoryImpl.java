@@ -0,0 +1,222 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.DepartmentEntity;
+import com.griddynamics.cd.entity.EmployeeEntity;
+import com.griddynamics.cd.model.filter.EmployeeFilter;
+import com.griddynamics.cd.repository.query.BulkDelete;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
+import com.griddynamics.cd.repository.query.BulkInsert;
+import com.griddynamics.cd.repository.query.BulkUpdate;
+import com.griddynamics.cd.repository.query.FilteredQuery;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import com.griddynamics.cd.repository.query.SearchQuery;
+import com.griddynamics.cd.repository.query.SortableColumnRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EmployeeRepositoryImpl implements EmployeeRepositoryCustom {
+
+    /**
+     * Must stay identical to the expression of the idx_employee_search_trgm index.
+     */
+    private static final String SEARCH_DOCUMENT = "COALESCE(e.first_name, '') || ' ' || COALESCE(e.last_name, '')";
+
+    /**
+     * Model field name to column, for projections.
+     */
+    private static final Map<String, String> FIELD_COLUMNS = Map.of(
+            "id", "id",
+            "firstName", "first_name",
+            "lastName", "last_name",
+            "birthday", "birthday",
+            "address", "address",
+            "phoneNumber", "phone_number",
+            "departmentId", "department_id");
+    private static final List<String> WRITE_COLUMNS = List.of("first_name", "last_name", "birthday", "address", "phone_number", "department_id");
+    private static final List<String> EXPORT_COLUMNS = List.of("id", "first_name", "last_name", "birthday", "address", "phone_number", "department_id");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private SortableColumnRegistry sortableColumnRegistry;
+
+    @Override
+    public boolean existsByColumnName(String columnName) {
+        return sortableColumnRegistry.isSortable(EmployeeEntity.class, columnName);
+    }
+
+    @Override
+    public Page<EmployeeEntity> findAllByFilter(EmployeeFilter filter, Pageable pageable) {
+        return filteredQuery(filter).page(pageable);
+    }
+
+    @Override
+    public Slice<EmployeeEntity> findSliceByFilter(EmployeeFilter filter, Pageable pageable) {
+        return filteredQuery(filter).slice(pageable);
+    }
+
+    @Override
+    public KeysetSlice<EmployeeEntity> findAllByFilterAfterCursor(EmployeeFilter filter, String orderBy, Sort.Direction order, String cursor, int pageSize) {
+        return filteredQuery(filter).fetch(orderBy, order, cursor, pageSize);
+    }
+
+    @Override
+    public Page<Map<String, Object>> findAllByFilter(EmployeeFilter filter, List<String> fields, Pageable pageable) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).page(pageable);
+    }
+
+    @Override
+    public Slice<Map<String, Object>> findSliceByFilter(EmployeeFilter filter, List<String> fields, Pageable pageable) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).slice(pageable);
+    }
+
+    @Override
+    public KeysetSlice<Map<String, Object>> findAllByFilterAfterCursor(EmployeeFilter filter, List<String> fields, String orderBy, Sort.Direction order, String cursor, int pageSize) {
+        return filteredQuery(filter).project(FIELD_COLUMNS, fields).fetch(orderBy, order, cursor, pageSize);
+    }
+
+    @Override
+    public KeysetSlice<EmployeeEntity> findAllChangedAfter(String cursor, int pageSize) {
+        return new FilteredQuery<>(entityManager, EmployeeEntity.class,
+                        sortableColumnRegistry.columns(EmployeeEntity.class), "employee", "e")
+                .committed("write_txid")
+                .follow("write_txid", Sort.Direction.ASC, cursor, pageSize, EXPORT_COLUMNS, EmployeeRepositoryImpl::toEmployeeEntity);
+    }
+
+    @Override
+    public KeysetSlice<EmployeeEntity> findAllBySimilarity(String text, String cursor, int pageSize) {
+        return searchQuery().fetch(text, cursor, pageSize, EXPORT_COLUMNS, EmployeeRepositoryImpl::toEmployeeEntity);
+    }
+
+    @Override
+    public long countByFilter(EmployeeFilter filter) {
+        return filteredQuery(filter).count();
+    }
+
+    @Override
+    public long estimateCountByFilter(EmployeeFilter filter) {
+        return filteredQuery(filter).estimateCount();
+    }
+
+    @Override
+    public List<String> explainByFilter(EmployeeFilter filter) {
+        return filteredQuery(filter).explain();
+    }
+
+    @Override
+    public List<String> explainByFilter(EmployeeFilter filter, Pageable pageable) {
+        return filteredQuery(filter).explain(pageable);
+    }
+
+    @Override
+    public List<String> explainByFilter(EmployeeFilter filter, String orderBy, Sort.Direction order, int pageSize) {
+        return filteredQuery(filter).explain(orderBy, order, pageSize);
+    }
+
+    @Override
+    public List<String> explainBySimilarity(String text, int pageSize) {
+        return searchQuery().explain(text, pageSize, EXPORT_COLUMNS);
+    }
+
+    @Override
+    public List<EmployeeEntity> findAllByIds(List<Long> ids) {
+        return new FilteredQuery<>(entityManager, EmployeeEntity.class,
+                        sortableColumnRegistry.columns(EmployeeEntity.class), "employee", "e")
+                .anyOf("id", ids)
+                .rows(EXPORT_COLUMNS, EmployeeRepositoryImpl::toEmployeeEntity);
+    }
+
+    @Override
+    public List<Long> insertAll(List<EmployeeEntity> employees) {
+        return new BulkInsert<EmployeeEntity>(entityManager, sortableColumnRegistry.columns(EmployeeEntity.class), "employee")
+                .insert(WRITE_COLUMNS, employees);
+    }
+
+    @Override
+    public BulkDeleteResult deleteAllByIds(List<Long> ids) {
+        return new BulkDelete(entityManager, sortableColumnRegistry.columns(EmployeeEntity.class), "employee")
+                .unlessReferencedBy("car", "employee_id")
+                .delete(ids);
+    }
+
+    @Override
+    public Map<String, Long> findIdsByPhoneNumbers(List<String> phoneNumbers) {
+        return new FilteredQuery<>(entityManager, EmployeeEntity.class,
+                        sortableColumnRegistry.columns(EmployeeEntity.class), "employee", "e")
+                .anyOf("phone_number", phoneNumbers)
+                .rows(List.of("id", "phone_number"), row -> Map.entry((String) row[1], (Long) row[0]))
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    @Override
+    public List<Long> updateAll(List<EmployeeEntity> employees) {
+        return new BulkUpdate<EmployeeEntity>(entityManager, sortableColumnRegistry.columns(EmployeeEntity.class), "employee")
+                .update(WRITE_COLUMNS, employees);
+    }
+
+    @Override
+    public int updateAllByFilter(EmployeeFilter filter, EmployeeEntity changes) {
+        return filteredQuery(filter).update(WRITE_COLUMNS, changes);
+    }
+
+    @Override
+    public Stream<EmployeeEntity> streamByFilter(EmployeeFilter filter) {
+        return filteredQuery(filter).stream(EXPORT_COLUMNS, EmployeeRepositoryImpl::toEmployeeEntity);
+    }
+
+    @Override
+    public void forEachChunkByFilter(EmployeeFilter filter, int chunkSize, Consumer<List<EmployeeEntity>> action) {
+        filteredQuery(filter).forEachChunk(EXPORT_COLUMNS, EmployeeRepositoryImpl::toEmployeeEntity, chunkSize, action);
+    }
+
+    /**
+     * Entity from an {@link #EXPORT_COLUMNS} row; associations only carry their id.
+     */
+    private static EmployeeEntity toEmployeeEntity(Object[] row) {
+        return EmployeeEntity.builder()
+                .id((Long) row[0])
+                .firstName((String) row[1])
+                .lastName((String) row[2])
+                .birthday((LocalDate) row[3])
+                .address((String) row[4])
+                .phoneNumber((String) row[5])
+                .department(row[6] == null ? null : DepartmentEntity.builder().id((Long) row[6]).build())
+                .build();
+    }
+
+    private SearchQuery searchQuery() {
+        return new SearchQuery(entityManager, sortableColumnRegistry.columns(EmployeeEntity.class), "employee", "e", SEARCH_DOCUMENT);
+    }
+
+    private FilteredQuery<EmployeeEntity> filteredQuery(EmployeeFilter filter) {
+        return new FilteredQuery<>(entityManager, EmployeeEntity.class,
+                        sortableColumnRegistry.columns(EmployeeEntity.class), "employee", "e")
+                .anyOf("first_name", filter.getFirstNames())
+                .anyOf("last_name", filter.getLastNames(), filter.getMatchMode())
+                .anyOf("birthday", filter.getBirthdays())
+                .anyOf("address", filter.getAddresses())
+                .anyOf("phone_number", filter.getPhoneNumbers())
+                .anyOf("department_id", filter.getDepartmentIds())
+                .noneOf("first_name", filter.getExcludeFirstNames())
+                .noneOf("last_name", filter.getExcludeLastNames())
+                .noneOf("birthday", filter.getExcludeBirthdays())
+                .noneOf("address", filter.getExcludeAddresses())
+                .noneOf("phone_number", filter.getExcludePhoneNumbers())
+                .noneOf("department_id", filter.getExcludeDepartmentIds())
+                .between("birthday", filter.getBirthdayFrom(), filter.getBirthdayTo())
+                .between("id", filter.getIdFrom(), filter.getIdTo());
+    }
+}
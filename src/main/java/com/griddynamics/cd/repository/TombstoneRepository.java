@@ -0,0 +1,7 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.TombstoneEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TombstoneRepository extends JpaRepository<TombstoneEntity, Long>, TombstoneRepositoryCustom {
+}
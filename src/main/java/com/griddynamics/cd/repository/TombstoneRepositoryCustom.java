@@ -0,0 +1,20 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.TombstoneEntity;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+
+public interface TombstoneRepositoryCustom {
+
+    /**
+     * Tombstones of {@code entityType} after the position of {@code cursor} in (write_txid, id) order, written by
+     * transactions that have finished. The returned cursor points at the last tombstone read, or is {@code cursor}
+     * itself when nothing was deleted.
+     */
+    KeysetSlice<TombstoneEntity> findAllDeletedAfter(String entityType, String cursor, int pageSize);
+
+    /**
+     * Whether the write stamping triggers of car, employee and department exist. They are only installed on
+     * PostgreSQL; without them updates keep the stamps of the insert and never reach sync clients.
+     */
+    boolean isChangeTrackingInstalled();
+}
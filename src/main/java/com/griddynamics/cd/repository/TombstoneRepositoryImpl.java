@@ -0,0 +1,59 @@
+package com.griddynamics.cd.repository;
+
+import com.griddynamics.cd.entity.TombstoneEntity;
+import com.griddynamics.cd.repository.query.FilteredQuery;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import com.griddynamics.cd.repository.query.SortableColumnRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class TombstoneRepositoryImpl implements TombstoneRepositoryCustom {
+
+    private static final List<String> TOMBSTONE_COLUMNS = List.of("id", "entity_type", "entity_id");
+    private static final String WRITE_STAMP_TRIGGERS = """
+            SELECT COUNT(DISTINCT LOWER(is_t.trigger_name))
+            FROM information_schema.triggers AS is_t
+            WHERE LOWER(is_t.trigger_name) IN ('trg_car_write_time', 'trg_employee_write_time', 'trg_department_write_time')
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private SortableColumnRegistry sortableColumnRegistry;
+    /**
+     * Triggers are only created by the migrations, which run before the application starts, so one lookup is enough.
+     */
+    private volatile Boolean changeTrackingInstalled;
+
+    @Override
+    public KeysetSlice<TombstoneEntity> findAllDeletedAfter(String entityType, String cursor, int pageSize) {
+        return new FilteredQuery<>(entityManager, TombstoneEntity.class,
+                        sortableColumnRegistry.columns(TombstoneEntity.class), "tombstone", "t")
+                // an equality rather than ANY, so the (entity_type, write_txid, id) index returns rows in order
+                .where("t.entity_type = :entityType")
+                .parameter("entityType", entityType)
+                .committed("write_txid")
+                .follow("write_txid", Sort.Direction.ASC, cursor, pageSize, TOMBSTONE_COLUMNS, TombstoneRepositoryImpl::toTombstoneEntity);
+    }
+
+    @Override
+    public boolean isChangeTrackingInstalled() {
+        if (changeTrackingInstalled == null) {
+            changeTrackingInstalled = ((Number) entityManager.createNativeQuery(WRITE_STAMP_TRIGGERS)
+                    .getSingleResult()).intValue() == 3;
+        }
+        return changeTrackingInstalled;
+    }
+
+    private static TombstoneEntity toTombstoneEntity(Object[] row) {
+        return TombstoneEntity.builder()
+                .id((Long) row[0])
+                .entityType((String) row[1])
+                .entityId((Long) row[2])
+                .build();
+    }
+}
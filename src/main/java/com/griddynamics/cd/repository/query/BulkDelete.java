@@ -0,0 +1,74 @@
+package com.griddynamics.cd.repository.query;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deletes a batch of rows by id in a single statement. A {@code NOT EXISTS} guard per referencing table skips
+ * rows that are still referenced, a tombstone is written for every deleted row, and the same statement reports
+ * which of the requested rows exist, so nothing is read or locked row by row.
+ */
+public final class BulkDelete {
+
+    private static final String TOMBSTONE_TABLE = "tombstone";
+
+    private final EntityManager entityManager;
+    private final EntityColumns columns;
+    private final String table;
+    private final List<String> guards = new ArrayList<>();
+
+    public BulkDelete(EntityManager entityManager, EntityColumns columns, String table) {
+        this.entityManager = entityManager;
+        this.columns = columns;
+        this.table = table;
+    }
+
+    /**
+     * Keeps every row that is referenced by {@code foreignKey} of {@code referencingTable}.
+     */
+    public BulkDelete unlessReferencedBy(String referencingTable, String foreignKey) {
+        guards.add(" AND NOT EXISTS (SELECT 1 FROM " + referencingTable
+                + " WHERE " + referencingTable + "." + foreignKey + " = " + table + "." + columns.id().name() + ")");
+        return this;
+    }
+
+    /**
+     * Tombstones carry the table name as entity type. Must run inside a transaction.
+     */
+    @SuppressWarnings("unchecked")
+    public BulkDeleteResult delete(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new BulkDeleteResult(List.of(), List.of());
+        }
+        String id = columns.id().name();
+
+        // Every part of the statement reads the same snapshot, so the final select still sees the deleted rows
+        Query query = entityManager.createNativeQuery("WITH requested AS ("
+                + "SELECT DISTINCT r.id FROM unnest(:ids) AS r(id)), "
+                + "deleted AS (DELETE FROM " + table + " USING requested"
+                + " WHERE " + table + "." + id + " = requested.id" + String.join("", guards)
+                + " RETURNING " + table + "." + id + "), "
+                + "tombstones AS (INSERT INTO " + TOMBSTONE_TABLE + " (entity_type, entity_id)"
+                + " SELECT :entityType, deleted." + id + " FROM deleted) "
+                + "SELECT existing." + id + ", deleted." + id + " IS NOT NULL FROM requested"
+                + " JOIN " + table + " existing ON existing." + id + " = requested.id"
+                + " LEFT JOIN deleted ON deleted." + id + " = existing." + id
+                + " ORDER BY existing." + id);
+        query.setParameter("ids", columns.id().arrayOf(ids));
+        query.setParameter("entityType", table);
+
+        List<Long> deleted = new ArrayList<>();
+        List<Long> blocked = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            Long rowId = ((Number) row[0]).longValue();
+            if ((Boolean) row[1]) {
+                deleted.add(rowId);
+            } else {
+                blocked.add(rowId);
+            }
+        }
+        return new BulkDeleteResult(deleted, blocked);
+    }
+}
@@ -0,0 +1,10 @@
+package com.griddynamics.cd.repository.query;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk delete: rows that were deleted and rows kept because other rows still reference them.
+ * Requested ids in neither list do not exist.
+ */
+public record BulkDeleteResult(List<Long> deleted, List<Long> blocked) {
+}
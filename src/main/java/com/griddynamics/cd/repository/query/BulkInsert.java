@@ -0,0 +1,72 @@
+package com.griddynamics.cd.repository.query;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Inserts a batch of entities in two statements whatever its size: one query draws a block of ids from the
+ * identity sequence of the table, then a single {@code INSERT ... SELECT FROM unnest(...)} writes every row from
+ * one array parameter per column. Ids are returned in the order of the given entities.
+ */
+public final class BulkInsert<T> {
+
+    private final EntityManager entityManager;
+    private final EntityColumns columns;
+    private final String table;
+
+    public BulkInsert(EntityManager entityManager, EntityColumns columns, String table) {
+        this.entityManager = entityManager;
+        this.columns = columns;
+        this.table = table;
+    }
+
+    /**
+     * Columns not listed keep their database default. Must run inside a transaction.
+     */
+    public List<Long> insert(List<String> insertColumns, List<T> entities) {
+        if (entities.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = allocateIds(entities.size());
+
+        List<EntityColumn> inserted = new ArrayList<>();
+        inserted.add(columns.id());
+        insertColumns.forEach(name -> inserted.add(columns.find(name)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown column " + name + " of " + table))));
+
+        String columnList = inserted.stream()
+                .map(EntityColumn::name)
+                .collect(Collectors.joining(", "));
+        String arrays = IntStream.range(0, inserted.size())
+                .mapToObj(i -> ":c" + i)
+                .collect(Collectors.joining(", "));
+        Query query = entityManager.createNativeQuery("INSERT INTO " + table + " (" + columnList + ")"
+                + " SELECT * FROM unnest(" + arrays + ")");
+
+        query.setParameter("c0", columns.id().arrayOf(ids));
+        for (int i = 1; i < inserted.size(); i++) {
+            EntityColumn column = inserted.get(i);
+            query.setParameter("c" + i, column.arrayOf(entities.stream()
+                    .map(column::read)
+                    .toList()));
+        }
+        query.executeUpdate();
+        return ids;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> allocateIds(int count) {
+        Query query = entityManager.createNativeQuery("SELECT nextval(pg_get_serial_sequence(:table, :id))"
+                + " FROM generate_series(1, :count)");
+        query.setParameter("table", table);
+        query.setParameter("id", columns.id().name());
+        query.setParameter("count", count);
+        return ((List<Number>) query.getResultList()).stream()
+                .map(Number::longValue)
+                .toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.griddynamics.cd.repository.query;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Updates a batch of rows, each with its own values, in a single {@code UPDATE ... FROM unnest(...)}: every
+ * column travels as one array parameter and rows are matched on id. A {@code null} value leaves the column
+ * unchanged, like a partial update. {@code updated_at} is set to the current time when the table tracks it.
+ */
+public final class BulkUpdate<T> {
+
+    private static final String VALUES = "v";
+
+    private final EntityManager entityManager;
+    private final EntityColumns columns;
+    private final String table;
+
+    public BulkUpdate(EntityManager entityManager, EntityColumns columns, String table) {
+        this.entityManager = entityManager;
+        this.columns = columns;
+        this.table = table;
+    }
+
+    /**
+     * Returns the ids of the rows that exist and were updated. Ids must be unique. Must run inside a transaction.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> update(List<String> updateColumns, List<T> entities) {
+        if (entities.isEmpty()) {
+            return List.of();
+        }
+        List<EntityColumn> updated = new ArrayList<>();
+        updated.add(columns.id());
+        updateColumns.forEach(name -> updated.add(columns.find(name)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown column " + name + " of " + table))));
+
+        List<String> set = updated.subList(1, updated.size()).stream()
+                .map(column -> column.name() + " = COALESCE(" + VALUES + "." + column.name() + ", "
+                        + table + "." + column.name() + ")")
+                .collect(Collectors.toCollection(ArrayList::new));
+        columns.updatedAt().ifPresent(updatedAt -> set.add(updatedAt.name() + " = CURRENT_TIMESTAMP"));
+        String arrays = IntStream.range(0, updated.size())
+                .mapToObj(i -> ":c" + i)
+                .collect(Collectors.joining(", "));
+        String valueColumns = updated.stream()
+                .map(EntityColumn::name)
+                .collect(Collectors.joining(", "));
+        String id = columns.id().name();
+
+        Query query = entityManager.createNativeQuery("UPDATE " + table + " SET " + String.join(", ", set)
+                + " FROM unnest(" + arrays + ") AS " + VALUES + "(" + valueColumns + ")"
+                + " WHERE " + table + "." + id + " = " + VALUES + "." + id
+                + " RETURNING " + table + "." + id);
+        for (int i = 0; i < updated.size(); i++) {
+            EntityColumn column = updated.get(i);
+            query.setParameter("c" + i, column.arrayOf(entities.stream()
+                    .map(column::read)
+                    .toList()));
+        }
+        return ((List<Number>) query.getResultList()).stream()
+                .map(Number::longValue)
+                .toList();
+    }
+}
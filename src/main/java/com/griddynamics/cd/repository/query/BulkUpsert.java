@@ -0,0 +1,100 @@
+package com.griddynamics.cd.repository.query;
+
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.BooleanType;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Inserts or replaces a batch of rows keyed by a unique column in a single
+ * {@code INSERT ... SELECT FROM unnest(...) ON CONFLICT ... DO UPDATE ... RETURNING}. Every written column is taken
+ * from the request, so an existing row ends up exactly like a new one would; {@code xmax = 0} in the returned rows
+ * tells inserted rows from updated ones.
+ */
+public final class BulkUpsert<T> {
+
+    private static final String KEY = "upsert_key";
+    private static final String CREATED = "created";
+
+    private final EntityManager entityManager;
+    private final EntityColumns columns;
+    private final String table;
+    private final EntityColumn key;
+
+    public BulkUpsert(EntityManager entityManager, EntityColumns columns, String table, String keyColumn) {
+        this.entityManager = entityManager;
+        this.columns = columns;
+        this.table = table;
+        this.key = column(keyColumn);
+    }
+
+    /**
+     * {@code writeColumns} must contain the key column and keys must be unique within the batch. Rows are mapped from
+     * {@code returnColumns} and returned in the order of the given entities. Must run inside a transaction.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> List<Upserted<R>> upsert(List<String> writeColumns, List<String> returnColumns,
+                                        Function<Object[], R> rowMapper, List<T> entities) {
+        if (entities.isEmpty()) {
+            return List.of();
+        }
+        List<EntityColumn> written = writeColumns.stream()
+                .map(this::column)
+                .toList();
+        List<EntityColumn> returned = returnColumns.stream()
+                .map(this::column)
+                .toList();
+
+        String columnList = written.stream()
+                .map(EntityColumn::name)
+                .collect(Collectors.joining(", "));
+        String arrays = IntStream.range(0, written.size())
+                .mapToObj(i -> ":c" + i)
+                .collect(Collectors.joining(", "));
+        List<String> set = written.stream()
+                .filter(column -> !column.name().equals(key.name()))
+                .map(column -> column.name() + " = EXCLUDED." + column.name())
+                .collect(Collectors.toCollection(ArrayList::new));
+        columns.updatedAt().ifPresent(updatedAt -> set.add(updatedAt.name() + " = CURRENT_TIMESTAMP"));
+        String returning = returned.stream()
+                .map(column -> table + "." + column.name())
+                .collect(Collectors.joining(", "));
+
+        NativeQuery<Object[]> query = entityManager.createNativeQuery("INSERT INTO " + table + " (" + columnList + ")"
+                        + " SELECT * FROM unnest(" + arrays + ")"
+                        + " ON CONFLICT (" + key.name() + ") DO UPDATE SET " + String.join(", ", set)
+                        + " RETURNING " + returning + ", " + table + "." + key.name() + " AS " + KEY
+                        + ", " + table + ".xmax = 0 AS " + CREATED)
+                .unwrap(NativeQuery.class);
+        for (int i = 0; i < written.size(); i++) {
+            EntityColumn column = written.get(i);
+            query.setParameter("c" + i, column.arrayOf(entities.stream()
+                    .map(column::read)
+                    .toList()));
+        }
+        returned.forEach(column -> query.addScalar(column.name(), column.scalarType()));
+        query.addScalar(KEY, key.scalarType());
+        query.addScalar(CREATED, BooleanType.INSTANCE);
+
+        Map<String, Upserted<R>> byKey = new HashMap<>();
+        for (Object[] row : query.getResultList()) {
+            byKey.put(key.format(row[returned.size()]),
+                    new Upserted<>(rowMapper.apply(row), (Boolean) row[returned.size() + 1]));
+        }
+        return entities.stream()
+                .map(entity -> byKey.get(key.format(key.read(entity))))
+                .toList();
+    }
+
+    private EntityColumn column(String name) {
+        return columns.find(name)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown column " + name + " of " + table));
+    }
+}
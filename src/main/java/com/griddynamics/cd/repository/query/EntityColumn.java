@@ -0,0 +1,97 @@
+package com.griddynamics.cd.repository.query;
+
+import com.vladmihalcea.hibernate.type.array.DateArrayType;
+import com.vladmihalcea.hibernate.type.array.LongArrayType;
+import com.vladmihalcea.hibernate.type.array.StringArrayType;
+import org.hibernate.jpa.TypedParameterValue;
+import org.hibernate.type.LocalDateTimeType;
+import org.hibernate.type.LocalDateType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import org.hibernate.type.Type;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Database column backing a single-valued entity attribute, with enough type information
+ * to read it from an entity and to bind it back into native SQL.
+ */
+public record EntityColumn(String name, Class<?> javaType, boolean nullable, Function<Object, Object> reader) {
+
+    public Object read(Object entity) {
+        return reader.apply(entity);
+    }
+
+    public String format(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Enum<?> constant ? constant.name() : value.toString();
+    }
+
+    public Object parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (Long.class.equals(javaType)) {
+            return Long.valueOf(value);
+        }
+        if (LocalDate.class.equals(javaType)) {
+            return LocalDate.parse(value);
+        }
+        if (LocalDateTime.class.equals(javaType)) {
+            return LocalDateTime.parse(value);
+        }
+        return value;
+    }
+
+    /**
+     * Array parameter for {@code = ANY(...)} comparisons against this column.
+     */
+    public TypedParameterValue arrayOf(List<?> values) {
+        if (Long.class.equals(javaType)) {
+            return new TypedParameterValue(LongArrayType.INSTANCE, values.toArray(Long[]::new));
+        }
+        if (LocalDate.class.equals(javaType)) {
+            return new TypedParameterValue(DateArrayType.INSTANCE, values.stream()
+                    .map(value -> value == null ? null : Date.valueOf((LocalDate) value))
+                    .toArray(Date[]::new));
+        }
+        return new TypedParameterValue(StringArrayType.INSTANCE, values.stream()
+                .map(this::format)
+                .toArray(String[]::new));
+    }
+
+    /**
+     * Hibernate type used to read this column as a scalar from a native query.
+     */
+    public Type scalarType() {
+        if (Long.class.equals(javaType)) {
+            return LongType.INSTANCE;
+        }
+        if (LocalDate.class.equals(javaType)) {
+            return LocalDateType.INSTANCE;
+        }
+        if (LocalDateTime.class.equals(javaType)) {
+            return LocalDateTimeType.INSTANCE;
+        }
+        return StringType.INSTANCE;
+    }
+
+    public String sqlType() {
+        if (Long.class.equals(javaType)) {
+            return "BIGINT";
+        }
+        if (LocalDate.class.equals(javaType)) {
+            return "DATE";
+        }
+        if (LocalDateTime.class.equals(javaType)) {
+            return "TIMESTAMP";
+        }
+        return "VARCHAR";
+    }
+}
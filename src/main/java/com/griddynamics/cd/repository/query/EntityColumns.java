@@ -0,0 +1,145 @@
+package com.griddynamics.cd.repository.query;
+
+import org.hibernate.Hibernate;
+
+import javax.persistence.Column;
+import javax.persistence.EntityManager;
+import javax.persistence.JoinColumn;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Column view of an entity built from the JPA metamodel: every single-valued attribute
+ * (plain columns and foreign keys) keyed by its database column name, plus the columns of entities
+ * referenced through many-to-one associations keyed by {@code association.column} once they are resolved
+ * with {@link #withRelated}.
+ */
+public final class EntityColumns {
+
+    private static final String UPDATED_AT = "updated_at";
+
+    private final Map<String, EntityColumn> columns;
+    private final EntityColumn id;
+    private final List<Association> associations;
+    private final Map<String, RelatedColumn> related;
+
+    private EntityColumns(Map<String, EntityColumn> columns, EntityColumn id, List<Association> associations,
+                          Map<String, RelatedColumn> related) {
+        this.columns = Collections.unmodifiableMap(columns);
+        this.id = id;
+        this.associations = List.copyOf(associations);
+        this.related = Collections.unmodifiableMap(related);
+    }
+
+    public static EntityColumns of(EntityManager entityManager, Class<?> entityClass) {
+        PersistenceUnitUtil unitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+        Map<String, EntityColumn> columns = new LinkedHashMap<>();
+        List<Association> associations = new ArrayList<>();
+        EntityColumn id = null;
+
+        for (SingularAttribute<?, ?> attribute : entityType.getSingularAttributes()) {
+            Field field = (Field) attribute.getJavaMember();
+            field.setAccessible(true);
+            EntityColumn column;
+
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE) {
+                column = new EntityColumn(field.getAnnotation(JoinColumn.class).name(), Long.class, attribute.isOptional(),
+                        entity -> Optional.ofNullable(readField(field, entity)).map(unitUtil::getIdentifier).orElse(null));
+                associations.add(new Association(attribute.getName(), column, attribute.getJavaType(), field));
+            } else {
+                column = new EntityColumn(field.getAnnotation(Column.class).name(), attribute.getJavaType(),
+                        attribute.isOptional() && !attribute.isId() && field.getAnnotation(Column.class).nullable(),
+                        entity -> readField(field, entity));
+            }
+
+            columns.put(column.name(), column);
+            if (attribute.isId()) {
+                id = column;
+            }
+        }
+        return new EntityColumns(columns, id, associations, Map.of());
+    }
+
+    /**
+     * Copy of these columns that also resolves the columns of every entity referenced through a many-to-one
+     * association, using the columns and table name of that entity.
+     */
+    public EntityColumns withRelated(Function<Class<?>, EntityColumns> columnsOf, Function<Class<?>, String> tableOf) {
+        Map<String, RelatedColumn> resolved = new LinkedHashMap<>();
+        for (Association association : associations) {
+            EntityColumns referenced = columnsOf.apply(association.target());
+            for (EntityColumn referencedColumn : referenced.all().values()) {
+                String path = association.name() + "." + referencedColumn.name();
+                EntityColumn column = new EntityColumn(path, referencedColumn.javaType(), true,
+                        entity -> Optional.ofNullable(readField(association.field(), entity))
+                                .map(reference -> referencedColumn.read(Hibernate.unproxy(reference)))
+                                .orElse(null));
+                resolved.put(path, new RelatedColumn(association.name(), association.foreignKey(),
+                        tableOf.apply(association.target()), referenced.id(), referencedColumn, column));
+            }
+        }
+        return new EntityColumns(columns, id, associations, resolved);
+    }
+
+    /**
+     * Copy of these columns without the ones missing from {@code names}; the id column is always kept.
+     */
+    public EntityColumns retainAll(Set<String> names) {
+        Map<String, EntityColumn> retained = new LinkedHashMap<>(columns);
+        retained.keySet().removeIf(name -> !names.contains(name) && !name.equals(id.name()));
+        return new EntityColumns(retained, id, associations, related);
+    }
+
+    public Optional<EntityColumn> find(String name) {
+        return Optional.ofNullable(columns.get(name));
+    }
+
+    /**
+     * Modification timestamp of the table, if it tracks one. Writes that bypass Hibernate set it themselves.
+     */
+    public Optional<EntityColumn> updatedAt() {
+        return find(UPDATED_AT);
+    }
+
+    public Map<String, EntityColumn> all() {
+        return columns;
+    }
+
+    /**
+     * Referenced columns keyed by {@code association.column}; empty until {@link #withRelated} resolves them.
+     */
+    public Optional<RelatedColumn> findRelated(String path) {
+        return Optional.ofNullable(related.get(path));
+    }
+
+    public Map<String, RelatedColumn> related() {
+        return related;
+    }
+
+    public EntityColumn id() {
+        return id;
+    }
+
+    private record Association(String name, EntityColumn foreignKey, Class<?> target, Field field) {
+    }
+
+    private static Object readField(Field field, Object entity) {
+        try {
+            return field.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to read " + field.getName(), e);
+        }
+    }
+}
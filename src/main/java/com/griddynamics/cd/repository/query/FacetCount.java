@@ -0,0 +1,8 @@
+package com.griddynamics.cd.repository.query;
+
+/**
+ * Number of matching rows that have {@code value} in a facet column; {@code value} is {@code null} for rows
+ * without one.
+ */
+public record FacetCount(String value, long count) {
+}
@@ -0,0 +1,763 @@
+package com.griddynamics.cd.repository.query;
+
+import com.griddynamics.cd.exception.ColumnNotFoundException;
+import com.griddynamics.cd.exception.EmptyFilterException;
+import com.griddynamics.cd.exception.InvalidCursorException;
+import com.griddynamics.cd.model.MatchMode;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Native select over one table that contains only the predicates of the filters actually present.
+ * <p>
+ * Every filter combination renders its own SQL text, so PostgreSQL plans each combination separately and
+ * the driver keeps a prepared statement per combination. A selective filter can therefore use its index
+ * instead of sharing one generic plan with the catch-all {@code :param IS NULL OR ...} form. Predicates are
+ * rendered in the order they are added, which keeps the text stable for the same combination.
+ * <p>
+ * {@link #fetch} is seek pagination: instead of skipping rows with OFFSET the next page starts right after
+ * the cursor row using a {@code (orderBy, id)} row-value comparison, so the cost of a page does not depend
+ * on how deep it is. Ordering follows PostgreSQL defaults: nulls come last for ascending and first for
+ * descending order.
+ * <p>
+ * Sort columns may also be columns of an entity referenced through a many-to-one foreign key, addressed as
+ * {@code association.column}. Only the queries sorted by one join the referenced table, on its primary key. Rows
+ * without a referenced value sort last in both directions. Keyset pages read them as a separate trailing segment:
+ * the rows with a value are an inner join, so the scan can start from an index of the referenced table on the sort
+ * column and look up the matching rows through the foreign key index, instead of joining and sorting every row.
+ * <p>
+ * {@link #estimateCount} reads the planner's row estimate instead of counting matching rows, and
+ * {@link #project} narrows the select list to a few scalar columns instead of hydrating entities.
+ */
+public final class FilteredQuery<T> {
+
+    public static final int STREAM_FETCH_SIZE = 1000;
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+    private static final Pattern LIKE_SPECIAL = Pattern.compile("[\\\\%_]");
+
+    private final EntityManager entityManager;
+    private final Class<T> entityClass;
+    private final EntityColumns columns;
+    private final String table;
+    private final String alias;
+    private final List<String> predicates;
+    private final Map<String, Object> parameters;
+    /**
+     * Field name to column of a projection, {@code null} when whole entities are selected.
+     */
+    private final Map<String, String> fieldColumns;
+    private final Map<String, EntityColumn> fields;
+
+    public FilteredQuery(EntityManager entityManager, Class<T> entityClass, EntityColumns columns, String table, String alias) {
+        this(entityManager, entityClass, columns, table, alias, new ArrayList<>(), new LinkedHashMap<>(), null, null);
+    }
+
+    private FilteredQuery(EntityManager entityManager, Class<T> entityClass, EntityColumns columns, String table, String alias,
+                          List<String> predicates, Map<String, Object> parameters,
+                          Map<String, String> fieldColumns, Map<String, EntityColumn> fields) {
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+        this.columns = columns;
+        this.table = table;
+        this.alias = alias;
+        this.predicates = predicates;
+        this.parameters = parameters;
+        this.fieldColumns = fieldColumns;
+        this.fields = fields;
+    }
+
+    /**
+     * Same query that selects only the given fields and returns each row as a map keyed by field name.
+     * Columns are read as scalars, so no entity is hydrated. {@code fieldColumns} maps every field name to its
+     * column. The id field is always included, and keyset pages also include their sort column.
+     */
+    public FilteredQuery<Map<String, Object>> project(Map<String, String> fieldColumns, List<String> fieldNames) {
+        Map<String, EntityColumn> projected = new LinkedHashMap<>();
+        projected.put(fieldOf(fieldColumns, columns.id()), columns.id());
+        for (String fieldName : fieldNames) {
+            String column = fieldColumns.get(fieldName);
+            if (column == null) {
+                throw new ColumnNotFoundException(fieldName);
+            }
+            projected.put(fieldName, column(column));
+        }
+        return new FilteredQuery<>(entityManager, null, columns, table, alias, predicates, parameters, fieldColumns, projected);
+    }
+
+    /**
+     * Adds {@code column = ANY(:values)}; does nothing when {@code values} is {@code null}.
+     */
+    public FilteredQuery<T> anyOf(String column, List<?> values) {
+        if (values == null) {
+            return this;
+        }
+        EntityColumn entityColumn = column(column);
+        return where(qualified(entityColumn) + " = ANY(:" + bind(entityColumn.arrayOf(values)) + ")");
+    }
+
+    /**
+     * {@link #anyOf(String, List)} for a string column with the given match mode: {@code lower(column) = ANY(...)}
+     * for {@link MatchMode#CI} and one {@code column LIKE 'value%'} per value for {@link MatchMode#PREFIX}, the
+     * forms the functional and {@code text_pattern_ops} indexes serve. A {@code null} mode matches exactly.
+     */
+    public FilteredQuery<T> anyOf(String column, List<String> values, MatchMode matchMode) {
+        if (values == null || matchMode == null || matchMode == MatchMode.EXACT) {
+            return anyOf(column, values);
+        }
+        EntityColumn entityColumn = column(column);
+        if (matchMode == MatchMode.CI) {
+            return where("LOWER(" + qualified(entityColumn) + ") = ANY(:" + bind(entityColumn.arrayOf(values.stream()
+                    .map(value -> value.toLowerCase(Locale.ROOT))
+                    .toList())) + ")");
+        }
+        return where(values.stream()
+                .map(value -> qualified(entityColumn) + " LIKE :" + bind(escapeLike(value) + "%"))
+                .collect(Collectors.joining(" OR ", "(", ")")));
+    }
+
+    /**
+     * Adds {@code column IN (SELECT id FROM referencedTable WHERE referencedColumn = ANY(:values))}: a semi-join
+     * through the foreign key {@code column}, so each row is returned once and both sides can use their indexes.
+     * The values are bound with the type of {@code column}. Ignored when {@code values} is {@code null}.
+     */
+    public FilteredQuery<T> anyOfReferenced(String column, String referencedTable, String referencedColumn, List<?> values) {
+        if (values == null) {
+            return this;
+        }
+        EntityColumn entityColumn = column(column);
+        return where(qualified(entityColumn) + " IN (SELECT ref.id FROM " + referencedTable + " ref WHERE ref."
+                + referencedColumn + " = ANY(:" + bind(entityColumn.arrayOf(values)) + "))");
+    }
+
+    /**
+     * Adds {@code column <> ALL(:values)}; rows with a {@code null} value are kept, since they equal none of the
+     * values. Does nothing when {@code values} is {@code null}.
+     */
+    public FilteredQuery<T> noneOf(String column, List<?> values) {
+        if (values == null) {
+            return this;
+        }
+        EntityColumn entityColumn = column(column);
+        String predicate = qualified(entityColumn) + " <> ALL(:" + bind(entityColumn.arrayOf(values)) + ")";
+        return where(entityColumn.nullable() ? "(" + predicate + " OR " + qualified(entityColumn) + " IS NULL)" : predicate);
+    }
+
+    /**
+     * Anti-join counterpart of {@link #anyOfReferenced}: keeps rows whose foreign key {@code column} does not reference
+     * a row of {@code referencedTable} with {@code referencedColumn = ANY(:values)}, including rows without a
+     * reference. Ignored when {@code values} is {@code null}.
+     */
+    public FilteredQuery<T> noneOfReferenced(String column, String referencedTable, String referencedColumn, List<?> values) {
+        if (values == null) {
+            return this;
+        }
+        EntityColumn entityColumn = column(column);
+        return where("NOT EXISTS (SELECT 1 FROM " + referencedTable + " ref WHERE ref.id = " + qualified(entityColumn)
+                + " AND ref." + referencedColumn + " = ANY(:" + bind(entityColumn.arrayOf(values)) + "))");
+    }
+
+    /**
+     * Adds inclusive {@code column >= :from} and {@code column <= :to} bounds; a {@code null} bound is left out.
+     */
+    public FilteredQuery<T> between(String column, Object from, Object to) {
+        EntityColumn entityColumn = column(column);
+        if (from != null) {
+            where(qualified(entityColumn) + " >= CAST(:" + bind(from) + " AS " + entityColumn.sqlType() + ")");
+        }
+        if (to != null) {
+            where(qualified(entityColumn) + " <= CAST(:" + bind(to) + " AS " + entityColumn.sqlType() + ")");
+        }
+        return this;
+    }
+
+    /**
+     * Keeps only rows whose transaction id {@code column} is below the xmin of the statement's snapshot. Every such
+     * writer has finished, while a writer still running or yet to start has a larger id, so a change feed read in
+     * {@code column} order never passes a row that is committed later. PostgreSQL only.
+     */
+    public FilteredQuery<T> committed(String column) {
+        return where(qualified(column(column)) + " < CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS TEXT) AS BIGINT)");
+    }
+
+    /**
+     * Adds a raw predicate; its parameters are bound with {@link #parameter}.
+     */
+    public FilteredQuery<T> where(String predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+
+    public FilteredQuery<T> parameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    public Page<T> page(Pageable pageable) {
+        List<T> content = list(pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        return PageableExecutionUtils.getPage(content, pageable, this::count);
+    }
+
+    public Slice<T> slice(Pageable pageable) {
+        List<T> rows = list(pageable.getSort(), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    public long count() {
+        Query query = entityManager.createNativeQuery("SELECT COUNT(*) " + from(predicates));
+        parameters.forEach(query::setParameter);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    /**
+     * Copies the non-null values of the given columns of {@code changes} onto every matching row with a single
+     * {@code UPDATE}, and sets {@code updated_at} to the current time when the table tracks it. Returns the number
+     * of updated rows. Must run inside a transaction. Throws {@link EmptyFilterException} when no predicate was
+     * added, so it never updates a whole table.
+     */
+    public int update(List<String> updateColumns, T changes) {
+        if (predicates.isEmpty()) {
+            throw new EmptyFilterException();
+        }
+        List<String> set = new ArrayList<>();
+        for (String name : updateColumns) {
+            EntityColumn column = column(name);
+            Object value = column.read(changes);
+            if (value != null) {
+                set.add(column.name() + " = :" + bind(value instanceof Enum<?> constant ? constant.name() : value));
+            }
+        }
+        if (set.isEmpty()) {
+            return 0;
+        }
+        columns.updatedAt().ifPresent(updatedAt -> set.add(updatedAt.name() + " = CURRENT_TIMESTAMP"));
+
+        Query query = entityManager.createNativeQuery("UPDATE " + table + " AS " + alias
+                + " SET " + String.join(", ", set) + " WHERE " + String.join(" AND ", predicates));
+        parameters.forEach(query::setParameter);
+        return query.executeUpdate();
+    }
+
+    public long estimateCount() {
+        Matcher matcher = PLAN_ROWS.matcher(explain().get(0));
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    /**
+     * Counts matching rows per value of each given column in a single pass with {@code GROUPING SETS}.
+     * The result is keyed by column name, in argument order, and each list is ordered by descending count.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, List<FacetCount>> facets(List<String> facetColumns) {
+        List<EntityColumn> facets = facetColumns.stream()
+                .map(this::column)
+                .toList();
+        String select = facets.stream()
+                .map(this::qualified)
+                .collect(Collectors.joining(", "));
+        String groupings = facets.stream()
+                .map(column -> "GROUPING(" + qualified(column) + ")")
+                .collect(Collectors.joining(", "));
+        String groupingSets = facets.stream()
+                .map(column -> "(" + qualified(column) + ")")
+                .collect(Collectors.joining(", "));
+
+        Query query = entityManager.createNativeQuery("SELECT " + select + ", " + groupings + ", COUNT(*) "
+                + from(predicates) + " GROUP BY GROUPING SETS (" + groupingSets + ") ORDER BY COUNT(*) DESC");
+        parameters.forEach(query::setParameter);
+
+        Map<String, List<FacetCount>> counts = new LinkedHashMap<>();
+        facets.forEach(column -> counts.put(column.name(), new ArrayList<>()));
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            long count = ((Number) row[2 * facets.size()]).longValue();
+            for (int i = 0; i < facets.size(); i++) {
+                // GROUPING(column) is 0 only in the grouping set of that column
+                if (((Number) row[facets.size() + i]).intValue() == 0) {
+                    counts.get(facets.get(i).name()).add(new FacetCount(row[i] == null ? null : row[i].toString(), count));
+                    break;
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Plan of the unpaged select, one line per element.
+     */
+    public List<String> explain() {
+        return explain("EXPLAIN " + select(predicates));
+    }
+
+    /**
+     * Plan of the offset page {@link #page(Pageable)} reads, one line per element.
+     */
+    public List<String> explain(Pageable pageable) {
+        return explain("EXPLAIN SELECT " + alias + ".* " + from(predicates, joins(pageable.getSort()))
+                + orderBy(pageable.getSort()) + " LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset());
+    }
+
+    public KeysetSlice<T> fetch(String orderBy, Sort.Direction order, String cursor, int limit) {
+        EntityColumn column = sortColumn(orderBy);
+        PageCursor position = position(orderBy, order, cursor);
+        Map<String, EntityColumn> selected = selected(column);
+        Optional<RelatedColumn> related = columns.findRelated(column.name());
+
+        List<T> rows = new ArrayList<>();
+        if (related.isEmpty()) {
+            rows.addAll(seek(seekSql(column, order, position, selected), column, position, cursor, selected, limit + 1));
+        } else {
+            if (position == null || position.value() != null) {
+                rows.addAll(seek(referencedSql(related.get(), column, order, position, selected),
+                        column, position, cursor, selected, limit + 1));
+            }
+            if (rows.size() <= limit) {
+                PageCursor unreferencedPosition = position != null && position.value() == null ? position : null;
+                rows.addAll(seek(unreferencedSql(related.get(), column, order, unreferencedPosition, selected),
+                        column, unreferencedPosition, cursor, selected, limit + 1 - rows.size()));
+            }
+        }
+        if (rows.size() <= limit) {
+            return new KeysetSlice<>(rows, null);
+        }
+
+        List<T> content = rows.subList(0, limit);
+        return new KeysetSlice<>(content, cursorOf(content.get(limit - 1), column, order));
+    }
+
+    /**
+     * Plan of the first keyset page {@link #fetch} reads, one line per element. For a referenced sort column that
+     * is the segment of rows with a value.
+     */
+    public List<String> explain(String orderBy, Sort.Direction order, int limit) {
+        EntityColumn column = sortColumn(orderBy);
+        Map<String, EntityColumn> selected = selected(column);
+        String sql = columns.findRelated(column.name())
+                .map(related -> referencedSql(related, column, order, null, selected))
+                .orElseGet(() -> seekSql(column, order, null, selected));
+        return explain("EXPLAIN " + sql + " LIMIT " + (limit + 1));
+    }
+
+    /**
+     * Keyset page for change feeds: reads the given columns of the rows after {@code cursor} in
+     * {@code (orderBy, id)} order as scalars like {@link #rows}, so no entity is hydrated and no association is
+     * loaded. The returned cursor always points at the last row read, even when no more rows follow, so the caller
+     * can resume from it once new rows arrive. An empty page hands back {@code cursor}.
+     */
+    public <R> KeysetSlice<R> follow(String orderBy, Sort.Direction order, String cursor, int limit,
+                                     List<String> selectColumns, Function<Object[], R> rowMapper) {
+        EntityColumn column = column(orderBy);
+        PageCursor position = position(orderBy, order, cursor);
+
+        // the cursor is read from the row, so the sort column and id are selected too
+        List<String> readColumns = new ArrayList<>(selectColumns);
+        for (String name : List.of(column.name(), columns.id().name())) {
+            if (!readColumns.contains(name)) {
+                readColumns.add(name);
+            }
+        }
+        NativeQuery<Object[]> query = scalarQuery(readColumns, seekPredicates(column, order, position),
+                seekOrderBy(column, order));
+        bindSeek(query, column, position, cursor);
+        query.setMaxResults(limit);
+
+        List<Object[]> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return new KeysetSlice<>(List.of(), cursor);
+        }
+        Object[] last = rows.get(rows.size() - 1);
+        String nextCursor = new PageCursor(column.name(), order, column.format(last[readColumns.indexOf(column.name())]),
+                (Long) last[readColumns.indexOf(columns.id().name())]).encode();
+        return new KeysetSlice<>(rows.stream().map(rowMapper).toList(), nextCursor);
+    }
+
+    /**
+     * Reads the given columns of every matching row in id order, {@code chunkSize} rows per keyset page. Rows are
+     * read as scalars like {@link #rows}, so no entity is managed and no association is loaded; only one chunk is
+     * held at a time. {@code selectColumns} must include the id, which keys the pages.
+     */
+    public <R> void forEachChunk(List<String> selectColumns, Function<Object[], R> rowMapper,
+                                 int chunkSize, Consumer<List<R>> action) {
+        int idIndex = selectColumns.indexOf(columns.id().name());
+        if (idIndex < 0) {
+            throw new IllegalArgumentException("Chunks are keyed by " + columns.id().name() + ", select it as well");
+        }
+
+        Object lastId = null;
+        List<Object[]> rows;
+        do {
+            List<String> where = new ArrayList<>(predicates);
+            if (lastId != null) {
+                where.add(seekPredicate(columns.id(), Sort.Direction.ASC, false));
+            }
+            NativeQuery<Object[]> query = scalarQuery(selectColumns, where);
+            if (lastId != null) {
+                query.setParameter("seekId", lastId);
+            }
+            query.setMaxResults(chunkSize);
+
+            rows = query.getResultList();
+            if (!rows.isEmpty()) {
+                action.accept(rows.stream().map(rowMapper).toList());
+                lastId = rows.get(rows.size() - 1)[idIndex];
+            }
+        } while (rows.size() == chunkSize);
+    }
+
+    /**
+     * Streams the given columns of every matching row in id order through a forward-only cursor that reads
+     * {@link #STREAM_FETCH_SIZE} rows per round trip. Rows are read as scalars, so nothing is kept in the
+     * persistence context and no associations are loaded. On PostgreSQL the cursor only streams inside a
+     * transaction; the stream must be closed by the caller.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Stream<R> stream(List<String> selectColumns, Function<Object[], R> rowMapper) {
+        NativeQuery<Object[]> query = scalarQuery(selectColumns);
+        query.setFetchSize(STREAM_FETCH_SIZE);
+        query.setReadOnly(true);
+        return query.stream().map(rowMapper);
+    }
+
+    /**
+     * The given columns of every matching row in id order, read as scalars in one query like {@link #stream}.
+     */
+    public <R> List<R> rows(List<String> selectColumns, Function<Object[], R> rowMapper) {
+        return scalarQuery(selectColumns).getResultList().stream()
+                .map(rowMapper)
+                .toList();
+    }
+
+    private NativeQuery<Object[]> scalarQuery(List<String> selectColumns) {
+        return scalarQuery(selectColumns, predicates);
+    }
+
+    private NativeQuery<Object[]> scalarQuery(List<String> selectColumns, List<String> where) {
+        return scalarQuery(selectColumns, where, qualified(columns.id()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private NativeQuery<Object[]> scalarQuery(List<String> selectColumns, List<String> where, String orderBy) {
+        List<EntityColumn> selected = selectColumns.stream()
+                .map(this::column)
+                .toList();
+        String select = selected.stream()
+                .map(this::qualified)
+                .collect(Collectors.joining(", "));
+
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(
+                        "SELECT " + select + " " + from(where) + " ORDER BY " + orderBy)
+                .unwrap(NativeQuery.class);
+        selected.forEach(column -> query.addScalar(column.name(), column.scalarType()));
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> explain(String sql) {
+        Query query = entityManager.createNativeQuery(sql);
+        parameters.forEach(query::setParameter);
+        return ((List<Object>) query.getResultList()).stream()
+                .map(String::valueOf)
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> list(Sort sort, long offset, int limit) {
+        Map<String, EntityColumn> selected = selected(null);
+        Query query = createQuery(selectList(selected) + " " + from(predicates, joins(sort)) + orderBy(sort), selected);
+        query.setFirstResult(Math.toIntExact(offset));
+        query.setMaxResults(limit);
+        return read(query, selected);
+    }
+
+    /**
+     * {@code ORDER BY} for offset pages. {@code id} is appended in the direction of the last sort key unless it is
+     * already sorted on, so ties never reorder between pages and an all-ascending or all-descending sort can be
+     * read straight off a composite index ending in {@code id}.
+     */
+    private String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        List<Sort.Order> orders = sort.toList();
+        String orderBy = orders.stream()
+                .map(order -> qualified(sortColumn(order.getProperty())) + " " + order.getDirection().name()
+                        + (columns.findRelated(order.getProperty()).isPresent() ? " NULLS LAST" : ""))
+                .collect(Collectors.joining(", "));
+        if (sort.getOrderFor(columns.id().name()) == null) {
+            orderBy += ", " + qualified(columns.id()) + " " + orders.get(orders.size() - 1).getDirection().name();
+        }
+        return " ORDER BY " + orderBy;
+    }
+
+    /**
+     * Projected columns plus the sort column when it is not projected; {@code null} for entity rows.
+     */
+    private Map<String, EntityColumn> selected(EntityColumn sortColumn) {
+        if (fields == null || sortColumn == null || fields.containsValue(sortColumn)) {
+            return fields;
+        }
+        Map<String, EntityColumn> selected = new LinkedHashMap<>(fields);
+        selected.put(fieldOf(fieldColumns, sortColumn), sortColumn);
+        return selected;
+    }
+
+    private String selectList(Map<String, EntityColumn> selected) {
+        if (selected == null) {
+            return "SELECT " + alias + ".*";
+        }
+        // a referenced column is labelled with its path, the name it is read back by
+        return "SELECT " + selected.values().stream()
+                .map(column -> columns.findRelated(column.name()).isPresent()
+                        ? qualified(column) + " AS \"" + column.name() + "\""
+                        : qualified(column))
+                .collect(Collectors.joining(", "));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Query createQuery(String sql, Map<String, EntityColumn> selected) {
+        Query query;
+        if (selected == null) {
+            query = entityManager.createNativeQuery(sql, entityClass);
+        } else {
+            NativeQuery<Object> nativeQuery = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+            selected.values().forEach(column -> nativeQuery.addScalar(column.name(), column.scalarType()));
+            query = nativeQuery;
+        }
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> read(Query query, Map<String, EntityColumn> selected) {
+        if (selected == null) {
+            return query.getResultList();
+        }
+        List<String> names = List.copyOf(selected.keySet());
+        return ((List<Object>) query.getResultList()).stream()
+                .map(result -> {
+                    // a single scalar column comes back as the bare value
+                    Object[] values = result instanceof Object[] array ? array : new Object[]{result};
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 0; i < names.size(); i++) {
+                        row.put(names.get(i), values[i]);
+                    }
+                    return (T) row;
+                })
+                .toList();
+    }
+
+    private String cursorOf(T row, EntityColumn column, Sort.Direction order) {
+        return new PageCursor(column.name(), order, column.format(value(row, column)), (Long) value(row, columns.id()))
+                .encode();
+    }
+
+    private Object value(T row, EntityColumn column) {
+        if (fields == null) {
+            return column.read(row);
+        }
+        return ((Map<?, ?>) row).get(fieldOf(fieldColumns, column));
+    }
+
+    private static String fieldOf(Map<String, String> fieldColumns, EntityColumn column) {
+        return fieldColumns.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(column.name()))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(column.name());
+    }
+
+    private String select(List<String> where) {
+        return "SELECT " + alias + ".* " + from(where);
+    }
+
+    private String from(List<String> where) {
+        return from(where, "");
+    }
+
+    private String from(List<String> where, String joins) {
+        String from = "FROM " + table + " AS " + alias + joins;
+        return where.isEmpty() ? from : from + " WHERE " + String.join(" AND ", where);
+    }
+
+    private String joins(Sort sort) {
+        return joins(sort.stream()
+                .map(order -> sortColumn(order.getProperty()))
+                .toList());
+    }
+
+    /**
+     * {@code LEFT JOIN} of every table referenced by the given sort columns, once per association.
+     */
+    private String joins(List<EntityColumn> sortColumns) {
+        Map<String, RelatedColumn> joined = new LinkedHashMap<>();
+        sortColumns.forEach(column -> columns.findRelated(column.name())
+                .ifPresent(related -> joined.putIfAbsent(related.association(), related)));
+        return joined.values().stream()
+                .map(related -> join("LEFT JOIN", related))
+                .collect(Collectors.joining());
+    }
+
+    private String join(String kind, RelatedColumn related) {
+        return " " + kind + " " + related.table() + " AS " + joinAlias(related) + " ON "
+                + joinAlias(related) + "." + related.referencedId().name() + " = " + qualified(related.foreignKey());
+    }
+
+    private String bind(Object value) {
+        String name = "p" + parameters.size();
+        parameters.put(name, value);
+        return name;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> seek(String sql, EntityColumn column, PageCursor position, String cursor,
+                         Map<String, EntityColumn> selected, int limit) {
+        Query query = createQuery(sql, selected);
+        bindSeek(query, column, position, cursor);
+        query.setMaxResults(limit);
+        return read(query, selected);
+    }
+
+    private String seekSql(EntityColumn column, Sort.Direction order, PageCursor position, Map<String, EntityColumn> selected) {
+        return selectList(selected) + " " + from(seekPredicates(column, order, position))
+                + " ORDER BY " + seekOrderBy(column, order);
+    }
+
+    /**
+     * Rows whose referenced sort value is not null, through an inner join. The seek repeats the bound on the sort
+     * value alone, which the index of the referenced table can start from.
+     */
+    private String referencedSql(RelatedColumn related, EntityColumn column, Sort.Direction order, PageCursor position,
+                                 Map<String, EntityColumn> selected) {
+        List<String> where = new ArrayList<>(predicates);
+        where.add(qualified(column) + " IS NOT NULL");
+        if (position != null) {
+            String value = "CAST(:seekValue AS " + column.sqlType() + ")";
+            String comparison = order.isAscending() ? ">" : "<";
+            where.add(qualified(column) + " " + comparison + "= " + value);
+            where.add("(" + qualified(column) + ", " + qualified(columns.id()) + ") " + comparison + " (" + value + ", :seekId)");
+        }
+        return selectList(selected) + " " + from(where, join("JOIN", related)) + " ORDER BY " + seekOrderBy(column, order);
+    }
+
+    /**
+     * Rows without a reference or whose referenced sort value is null, in id order.
+     */
+    private String unreferencedSql(RelatedColumn related, EntityColumn column, Sort.Direction order, PageCursor position,
+                                   Map<String, EntityColumn> selected) {
+        List<String> where = new ArrayList<>(predicates);
+        where.add("(" + qualified(related.foreignKey()) + " IS NULL OR " + qualified(column) + " IS NULL)");
+        if (position != null) {
+            where.add(qualified(columns.id()) + " " + (order.isAscending() ? ">" : "<") + " :seekId");
+        }
+        return selectList(selected) + " " + from(where, join("LEFT JOIN", related))
+                + " ORDER BY " + qualified(columns.id()) + " " + order.name();
+    }
+
+    private static PageCursor position(String orderBy, Sort.Direction order, String cursor) {
+        PageCursor position = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        if (position != null && (!position.orderBy().equals(orderBy) || position.order() != order)) {
+            throw new InvalidCursorException(cursor);
+        }
+        return position;
+    }
+
+    private List<String> seekPredicates(EntityColumn column, Sort.Direction order, PageCursor position) {
+        List<String> seekPredicates = new ArrayList<>(predicates);
+        if (position != null) {
+            seekPredicates.add(seekPredicate(column, order, position.value() == null));
+        }
+        return seekPredicates;
+    }
+
+    private void bindSeek(Query query, EntityColumn column, PageCursor position, String cursor) {
+        if (position != null) {
+            if (position.value() != null && !isId(column)) {
+                query.setParameter("seekValue", parseValue(column, position, cursor));
+            }
+            query.setParameter("seekId", position.id());
+        }
+    }
+
+    private String seekOrderBy(EntityColumn column, Sort.Direction order) {
+        String id = qualified(columns.id());
+        return isId(column)
+                ? id + " " + order.name()
+                : qualified(column) + " " + order.name() + ", " + id + " " + order.name();
+    }
+
+    private String seekPredicate(EntityColumn column, Sort.Direction order, boolean nullValue) {
+        String id = qualified(columns.id());
+        String comparison = order.isAscending() ? ">" : "<";
+        if (isId(column)) {
+            return id + " " + comparison + " :seekId";
+        }
+
+        String col = qualified(column);
+        if (nullValue) {
+            return order.isAscending()
+                    ? "(" + col + " IS NULL AND " + id + " > :seekId)"
+                    : "(" + col + " IS NOT NULL OR " + id + " < :seekId)";
+        }
+
+        String seek = "(" + col + ", " + id + ") " + comparison + " (CAST(:seekValue AS " + column.sqlType() + "), :seekId)";
+        return column.nullable() && order.isAscending()
+                ? "(" + seek + " OR " + col + " IS NULL)"
+                : seek;
+    }
+
+    private Object parseValue(EntityColumn column, PageCursor position, String cursor) {
+        try {
+            return column.parse(position.value());
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return LIKE_SPECIAL.matcher(value).replaceAll("\\\\$0");
+    }
+
+    private EntityColumn column(String name) {
+        return columns.find(name).orElseThrow(() -> new ColumnNotFoundException(name));
+    }
+
+    private EntityColumn sortColumn(String name) {
+        return columns.find(name)
+                .or(() -> columns.findRelated(name).map(RelatedColumn::column))
+                .orElseThrow(() -> new ColumnNotFoundException(name));
+    }
+
+    private String qualified(EntityColumn column) {
+        return columns.findRelated(column.name())
+                .map(related -> joinAlias(related) + "." + related.referencedColumn().name())
+                .orElse(alias + "." + column.name());
+    }
+
+    private String joinAlias(RelatedColumn related) {
+        return alias + "_" + related.association();
+    }
+
+    private boolean isId(EntityColumn column) {
+        return column.name().equals(columns.id().name());
+    }
+}
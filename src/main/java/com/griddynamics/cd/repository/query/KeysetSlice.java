@@ -0,0 +1,14 @@
+package com.griddynamics.cd.repository.query;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One keyset page and the cursor of the following one, {@code null} when there are no more rows.
+ */
+public record KeysetSlice<T>(List<T> content, String nextCursor) {
+
+    public <R> KeysetSlice<R> map(Function<? super T, ? extends R> converter) {
+        return new KeysetSlice<>(content.stream().<R>map(converter).toList(), nextCursor);
+    }
+}
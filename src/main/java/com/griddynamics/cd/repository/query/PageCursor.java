@@ -0,0 +1,37 @@
+package com.griddynamics.cd.repository.query;
+
+import com.griddynamics.cd.exception.InvalidCursorException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: the value of the {@code orderBy} column and the row id.
+ * Travels to clients as an opaque url-safe string.
+ */
+public record PageCursor(String orderBy, Sort.Direction order, String value, long id) {
+
+    private static final String SEPARATOR = ",";
+    private static final String VALUE_PREFIX = "~";
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, orderBy, order.name(), String.valueOf(id),
+                value == null ? "" : VALUE_PREFIX + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 4);
+            if (parts.length != 4 || !(parts[3].isEmpty() || parts[3].startsWith(VALUE_PREFIX))) {
+                throw new InvalidCursorException(cursor);
+            }
+            String value = parts[3].isEmpty() ? null : parts[3].substring(VALUE_PREFIX.length());
+            return new PageCursor(parts[0], Sort.Direction.fromString(parts[1]), value, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
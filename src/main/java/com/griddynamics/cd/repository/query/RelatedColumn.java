@@ -0,0 +1,10 @@
+package com.griddynamics.cd.repository.query;
+
+/**
+ * Column of an entity referenced through a many-to-one foreign key, addressed as {@code association.column}.
+ * {@code column} is a nullable view of the referenced column named by that path that reads its value through
+ * the association, since rows without a referenced entity sort as {@code null}.
+ */
+public record RelatedColumn(String association, EntityColumn foreignKey, String table, EntityColumn referencedId,
+                            EntityColumn referencedColumn, EntityColumn column) {
+}
@@ -0,0 +1,122 @@
+package com.griddynamics.cd.repository.query;
+
+import com.griddynamics.cd.exception.ColumnNotFoundException;
+import com.griddynamics.cd.exception.InvalidCursorException;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.FloatType;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Fuzzy search over a text document built from entity columns, ranked by {@code pg_trgm} word similarity.
+ * <p>
+ * {@code :text <% document} is answered from a trigram GIN index on exactly the same expression, so
+ * {@code document} must match the indexed expression. Pages are keyset over {@code (score, id)} descending.
+ * Rows are read as scalars like {@link FilteredQuery#rows}, so no entity is hydrated and no association is loaded.
+ */
+public final class SearchQuery {
+
+    private static final String SCORE = "score";
+    /**
+     * Label of the id read for the cursor, so it does not clash with an id among the selected columns.
+     */
+    private static final String SEARCH_ID = "search_id";
+
+    private final EntityManager entityManager;
+    private final EntityColumns columns;
+    private final String table;
+    private final String alias;
+    private final String document;
+
+    public SearchQuery(EntityManager entityManager, EntityColumns columns, String table, String alias, String document) {
+        this.entityManager = entityManager;
+        this.columns = columns;
+        this.table = table;
+        this.alias = alias;
+        this.document = document;
+    }
+
+    /**
+     * Page of the given columns of the matching rows; the id and score, which the cursor is built from, are selected
+     * after them.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> KeysetSlice<R> fetch(String text, String cursor, int limit,
+                                    List<String> selectColumns, Function<Object[], R> rowMapper) {
+        PageCursor position = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        if (position != null && (!SCORE.equals(position.orderBy()) || position.value() == null)) {
+            throw new InvalidCursorException(cursor);
+        }
+
+        List<EntityColumn> selected = selected(selectColumns);
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(sql(selected, position != null))
+                .unwrap(NativeQuery.class);
+        selected.forEach(column -> query.addScalar(column.name(), column.scalarType()));
+        query.addScalar(SEARCH_ID, columns.id().scalarType())
+                .addScalar(SCORE, FloatType.INSTANCE);
+        query.setParameter("text", text);
+        if (position != null) {
+            query.setParameter("seekScore", parseScore(position, cursor));
+            query.setParameter("seekId", position.id());
+        }
+        query.setMaxResults(limit + 1);
+
+        List<Object[]> rows = query.getResultList();
+        List<R> content = rows.stream()
+                .limit(limit)
+                .map(rowMapper)
+                .toList();
+        if (rows.size() <= limit) {
+            return new KeysetSlice<>(content, null);
+        }
+
+        Object[] last = rows.get(limit - 1);
+        PageCursor next = new PageCursor(SCORE, Sort.Direction.DESC, String.valueOf(last[selected.size() + 1]),
+                (Long) last[selected.size()]);
+        return new KeysetSlice<>(content, next.encode());
+    }
+
+    /**
+     * Plan of the first page {@link #fetch} reads for the given columns, one line per element.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> explain(String text, int limit, List<String> selectColumns) {
+        Query query = entityManager.createNativeQuery("EXPLAIN " + sql(selected(selectColumns), false) + " LIMIT " + (limit + 1));
+        query.setParameter("text", text);
+        return ((List<Object>) query.getResultList()).stream()
+                .map(String::valueOf)
+                .toList();
+    }
+
+    private List<EntityColumn> selected(List<String> selectColumns) {
+        return selectColumns.stream()
+                .map(name -> columns.find(name).orElseThrow(() -> new ColumnNotFoundException(name)))
+                .toList();
+    }
+
+    private String sql(List<EntityColumn> selected, boolean seek) {
+        String id = alias + "." + columns.id().name();
+        String score = "word_similarity(:text, " + document + ")";
+        String select = selected.stream()
+                .map(column -> alias + "." + column.name() + ", ")
+                .collect(Collectors.joining());
+        return "SELECT " + select + id + " AS " + SEARCH_ID + ", " + score + " AS " + SCORE
+                + " FROM " + table + " AS " + alias
+                + " WHERE :text <% (" + document + ")"
+                + (seek ? " AND (" + score + ", " + id + ") < (CAST(:seekScore AS REAL), :seekId)" : "")
+                + " ORDER BY " + SCORE + " DESC, " + id + " DESC";
+    }
+
+    private Float parseScore(PageCursor position, String cursor) {
+        try {
+            return Float.valueOf(position.value());
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.griddynamics.cd.repository.query;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Table;
+import javax.persistence.metamodel.EntityType;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable per-entity whitelist of columns that can be used in {@code orderBy}, so validating a sort
+ * column is a map lookup instead of an {@code information_schema} query per request. Columns of entities
+ * referenced through a many-to-one association are sortable as {@code association.column}.
+ * <p>
+ * Columns come from the JPA metamodel and are kept only if the catalog has them. The entity manager
+ * factory is created after Liquibase, so the startup load already sees the migrated schema;
+ * {@link #refresh()} rebuilds the whitelist if the schema changes while the application runs.
+ */
+@Component
+@Slf4j
+public class SortableColumnRegistry {
+
+    private static final String CATALOG_COLUMNS = """
+            SELECT LOWER(is_c.column_name)
+            FROM information_schema.columns AS is_c
+            WHERE LOWER(is_c.table_name) = :tableName
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    private volatile Map<Class<?>, EntityColumns> columns = Map.of();
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void refresh() {
+        Map<Class<?>, EntityColumns> loaded = new HashMap<>();
+        Map<Class<?>, String> tableNames = new HashMap<>();
+
+        for (EntityType<?> entityType : entityManager.getMetamodel().getEntities()) {
+            Class<?> entityClass = entityType.getJavaType();
+            String tableName = entityClass.getAnnotation(Table.class).name();
+            Set<String> catalogColumns = new HashSet<>((List<String>) entityManager.createNativeQuery(CATALOG_COLUMNS)
+                    .setParameter("tableName", tableName)
+                    .getResultList());
+
+            loaded.put(entityClass, EntityColumns.of(entityManager, entityClass).retainAll(catalogColumns));
+            tableNames.put(entityClass, tableName);
+        }
+
+        Map<Class<?>, EntityColumns> resolved = new HashMap<>();
+        loaded.forEach((entityClass, entityColumns) -> {
+            EntityColumns withRelated = entityColumns.withRelated(loaded::get, tableNames::get);
+            resolved.put(entityClass, withRelated);
+            log.info("Sortable columns of {}: {} {}", tableNames.get(entityClass), withRelated.all().keySet(),
+                    withRelated.related().keySet());
+        });
+        columns = Map.copyOf(resolved);
+    }
+
+    public EntityColumns columns(Class<?> entityClass) {
+        return columns.get(entityClass);
+    }
+
+    public boolean isSortable(Class<?> entityClass, String column) {
+        EntityColumns entityColumns = columns.get(entityClass);
+        return entityColumns != null
+                && (entityColumns.find(column).isPresent() || entityColumns.findRelated(column).isPresent());
+    }
+}
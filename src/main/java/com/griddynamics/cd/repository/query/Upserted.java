@@ -0,0 +1,7 @@
+package com.griddynamics.cd.repository.query;
+
+/**
+ * Row written by an upsert and whether the statement inserted it ({@code true}) or updated an existing row.
+ */
+public record Upserted<R>(R row, boolean created) {
+}
@@ -0,0 +1,177 @@
+package com.griddynamics.cd.service;
+
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.BulkItemStatus;
+import com.griddynamics.cd.model.update.BulkUpdateItem;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
+import com.griddynamics.cd.repository.query.Upserted;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Per-item outcome of bulk requests. Items are checked one by one, but everything that passes is written with a
+ * single statement, so a batch costs the same few round trips whatever its size.
+ */
+final class BulkResults {
+
+    private BulkResults() {
+    }
+
+    /**
+     * {@code rejection} gives the reason an item cannot be created, or {@code null}; it sees the items in request
+     * order, so it may also reject duplicates within the batch. Accepted items are inserted by {@code insertAll},
+     * which returns their ids in argument order.
+     */
+    static <R, E> List<BulkItemResult> create(List<R> requests,
+                                              Function<R, String> rejection,
+                                              Function<R, E> toEntity,
+                                              Function<List<E>, List<Long>> insertAll) {
+        return write(requests, rejection, toEntity, (accepted, entities) -> insertAll.apply(entities),
+                (request, id) -> written(BulkItemStatus.CREATED, id));
+    }
+
+    /**
+     * Like {@link #create}, but {@code upsertAll} may also replace existing rows; it returns the ids in argument
+     * order together with whether each row was inserted.
+     */
+    static <R, E> List<BulkItemResult> upsert(List<R> requests,
+                                              Function<R, String> rejection,
+                                              Function<R, E> toEntity,
+                                              Function<List<E>, List<Upserted<Long>>> upsertAll) {
+        return write(requests, rejection, toEntity, (accepted, entities) -> upsertAll.apply(entities),
+                (request, upserted) -> written(upserted.created() ? BulkItemStatus.CREATED : BulkItemStatus.UPDATED,
+                        upserted.row()));
+    }
+
+    /**
+     * {@code rejection} gives the reason an item cannot be applied, or {@code null}; items repeating the id of an
+     * earlier item are rejected before it is asked. Accepted items are written by {@code updateAll}, which returns
+     * the ids of the rows that exist; the others are reported as not found.
+     */
+    static <R, E> List<BulkItemResult> update(String entityName,
+                                              List<BulkUpdateItem<R>> items,
+                                              Function<BulkUpdateItem<R>, String> rejection,
+                                              Function<BulkUpdateItem<R>, E> toEntity,
+                                              Function<List<E>, List<Long>> updateAll) {
+        Set<Long> seen = new HashSet<>();
+        return write(items,
+                item -> seen.add(item.getId())
+                        ? rejection.apply(item)
+                        : entityName + " with " + item.getId() + " id is repeated in the request",
+                toEntity,
+                (accepted, entities) -> {
+                    Set<Long> updated = new HashSet<>(updateAll.apply(entities));
+                    return accepted.stream().map(item -> updated.contains(item.getId())).toList();
+                },
+                (item, found) -> found
+                        ? written(BulkItemStatus.UPDATED, item.getId())
+                        : BulkItemResult.builder()
+                                .status(BulkItemStatus.FAILED)
+                                .message(entityName + " with " + item.getId() + " id was not found"));
+    }
+
+    /**
+     * Ids repeating an earlier id are rejected; the others are removed by {@code deleteAll} at once. Rows it keeps
+     * because they are still referenced fail with {@code blockedMessage}, unknown ids are reported as not found.
+     */
+    static List<BulkItemResult> delete(String entityName,
+                                       List<Long> ids,
+                                       Function<List<Long>, BulkDeleteResult> deleteAll,
+                                       Function<Long, String> blockedMessage) {
+        BulkItemResult[] results = new BulkItemResult[ids.size()];
+        Set<Long> seen = new HashSet<>();
+        List<Integer> accepted = new ArrayList<>();
+
+        for (int i = 0; i < ids.size(); i++) {
+            if (seen.add(ids.get(i))) {
+                accepted.add(i);
+            } else {
+                results[i] = failed(i, entityName + " with " + ids.get(i) + " id is repeated in the request");
+            }
+        }
+
+        BulkDeleteResult outcome = deleteAll.apply(List.copyOf(seen));
+        Set<Long> deleted = new HashSet<>(outcome.deleted());
+        Set<Long> blocked = new HashSet<>(outcome.blocked());
+        for (int index : accepted) {
+            Long id = ids.get(index);
+            if (deleted.contains(id)) {
+                results[index] = BulkItemResult.builder().index(index).status(BulkItemStatus.DELETED).id(id).build();
+            } else if (blocked.contains(id)) {
+                results[index] = failed(index, blockedMessage.apply(id));
+            } else {
+                results[index] = failed(index, entityName + " with " + id + " id was not found");
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Checks every item with {@code rejection}, hands the accepted ones to {@code writeAll} in a single call and
+     * reports each of them with {@code report}, given the outcome {@code writeAll} returned for it in argument order.
+     */
+    private static <R, E, W> List<BulkItemResult> write(List<R> requests,
+                                                        Function<R, String> rejection,
+                                                        Function<R, E> toEntity,
+                                                        BiFunction<List<R>, List<E>, List<W>> writeAll,
+                                                        BiFunction<R, W, BulkItemResult.BulkItemResultBuilder> report) {
+        BulkItemResult[] results = new BulkItemResult[requests.size()];
+        List<Integer> indexes = new ArrayList<>();
+        List<R> accepted = new ArrayList<>();
+        List<E> entities = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            String reason = rejection.apply(requests.get(i));
+            if (reason != null) {
+                results[i] = failed(i, reason);
+            } else {
+                indexes.add(i);
+                accepted.add(requests.get(i));
+                entities.add(toEntity.apply(requests.get(i)));
+            }
+        }
+
+        List<W> outcomes = entities.isEmpty() ? List.of() : writeAll.apply(accepted, entities);
+        for (int i = 0; i < indexes.size(); i++) {
+            results[indexes.get(i)] = report.apply(accepted.get(i), outcomes.get(i))
+                    .index(indexes.get(i))
+                    .build();
+        }
+        return Arrays.asList(results);
+    }
+
+    private static BulkItemResult.BulkItemResultBuilder written(BulkItemStatus status, Long id) {
+        return BulkItemResult.builder().status(status).id(id);
+    }
+
+    static BulkItemResult failed(int index, String message) {
+        return BulkItemResult.builder()
+                .index(index)
+                .status(BulkItemStatus.FAILED)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Every item result in request order plus the number of items per status, keyed by lower-case status name.
+     */
+    static ResponseEntity<?> response(List<BulkItemResult> results) {
+        HashMap<String, Object> values = new HashMap<>();
+        for (BulkItemStatus status : BulkItemStatus.values()) {
+            values.put(status.name().toLowerCase(), results.stream()
+                    .filter(result -> result.getStatus() == status)
+                    .count());
+        }
+        values.put("results", results);
+        return new ResponseEntity<>(values, HttpStatus.OK);
+    }
+}
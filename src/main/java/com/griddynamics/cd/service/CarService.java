@@ -2,31 +2,51 @@ package com.griddynamics.cd.service;
 
 import com.griddynamics.cd.entity.CarEntity;
 import com.griddynamics.cd.entity.EmployeeEntity;
-import com.griddynamics.cd.exception.ColumnNotFoundException;
+import com.griddynamics.cd.entity.TombstoneEntity;
+import com.griddynamics.cd.exception.PerItemChangeException;
 import com.griddynamics.cd.mapper.CarMapper;
+import com.griddynamics.cd.model.BulkItemResult;
 import com.griddynamics.cd.model.Car;
-import com.griddynamics.cd.model.Color;
+import com.griddynamics.cd.model.CountMode;
+import com.griddynamics.cd.model.ExportFormat;
 import com.griddynamics.cd.model.create.CreateCarRequest;
+import com.griddynamics.cd.model.filter.CarFilter;
+import com.griddynamics.cd.model.update.BulkUpdateRequest;
 import com.griddynamics.cd.model.update.UpdateCarRequest;
 import com.griddynamics.cd.repository.CarRepository;
 import com.griddynamics.cd.repository.EmployeeRepository;
-import com.vladmihalcea.hibernate.type.array.LongArrayType;
-import com.vladmihalcea.hibernate.type.array.StringArrayType;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.repository.query.FacetCount;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import com.griddynamics.cd.repository.query.Upserted;
 import lombok.AllArgsConstructor;
-import org.hibernate.jpa.TypedParameterValue;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
@@ -34,45 +54,70 @@ public class CarService {
 
     private final CarRepository carRepository;
     private final EmployeeRepository employeeRepository;
+    private final TombstoneRepository tombstoneRepository;
     private final CarMapper carMapper;
+    private final ExportWriter exportWriter;
+    private final PlatformTransactionManager transactionManager;
 
+    /**
+     * Every car, read as one chunk one row larger than the bound, so a larger table fails before a second chunk.
+     */
     public List<Car> getAllCars() {
-        return carRepository.findAll().stream()
+        List<Car> cars = new ArrayList<>();
+        forEachCarChunk(new CarFilter(), ResultLimit.MAX_RESULT_SIZE + 1,
+                chunk -> cars.addAll(ResultLimit.requireWithinLimit(chunk, "cars")));
+        return cars;
+    }
+
+    /**
+     * Hands every car matching the filter to {@code action} in id order, {@code chunkSize} cars at a time.
+     */
+    public void forEachCarChunk(CarFilter filter, int chunkSize, Consumer<List<Car>> action) {
+        carRepository.forEachChunkByFilter(filter, chunkSize, chunk -> action.accept(chunk.stream()
                 .map(carMapper::toCarModel)
-                .toList();
+                .toList()));
     }
 
-    public ResponseEntity<?> getCarsWithFiltering(List<String> manufacturers,
-                                                  List<String> models,
-                                                  List<String> vinNumbers,
-                                                  List<Long> employeeIds,
-                                                  List<Color> colors,
+    public ResponseEntity<?> getCarsWithFiltering(CarFilter filter,
+                                                  List<String> fields,
                                                   int pageNumber,
                                                   int pageSize,
                                                   String orderBy,
-                                                  Sort.Direction order) {
-        if (!carRepository.existsByColumnName(orderBy)) {
-            throw new ColumnNotFoundException(orderBy);
+                                                  Sort.Direction order,
+                                                  Sort sort,
+                                                  String cursor,
+                                                  CountMode count) {
+        Sort sorting = SortOrders.resolve(sort, orderBy, order, carRepository::existsByColumnName);
+
+        if (cursor != null) {
+            Sort.Order seek = SortOrders.single(sorting, cursor);
+            KeysetSlice<?> slice = fields == null
+                    ? carRepository.findAllByFilterAfterCursor(filter, seek.getProperty(), seek.getDirection(), cursor, pageSize).map(carMapper::toCarModel)
+                    : carRepository.findAllByFilterAfterCursor(filter, fields, seek.getProperty(), seek.getDirection(), cursor, pageSize);
+
+            if (slice.content().isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            HashMap<String, Object> values = new HashMap<>();
+            values.put("pageSize", pageSize);
+            values.put("nextCursor", slice.nextCursor());
+            values.put("cars", slice.content());
+
+            return new ResponseEntity<>(values, HttpStatus.OK);
         }
 
-        Page<Car> page = new PageImpl<>(carRepository.findAllByFilterParamsAndSortAndPaged(
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(manufacturers).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(models).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(vinNumbers).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(LongArrayType.INSTANCE,
-                                Optional.ofNullable(employeeIds).map(list -> list.toArray(Long[]::new)).orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(colors).map(list -> list.stream()
-                                                .map(Color::name)
-                                                .toArray(String[]::new))
-                                        .orElse(null)),
-                        PageRequest.of(pageNumber, pageSize, Sort.by(order, orderBy))).stream()
-                .map(carMapper::toCarModel)
-                .toList()
-        );
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, sorting);
+        Slice<?> page;
+        if (fields == null) {
+            page = count == CountMode.EXACT
+                    ? carRepository.findAllByFilter(filter, pageable).map(carMapper::toCarModel)
+                    : carRepository.findSliceByFilter(filter, pageable).map(carMapper::toCarModel);
+        } else {
+            page = count == CountMode.EXACT
+                    ? carRepository.findAllByFilter(filter, fields, pageable)
+                    : carRepository.findSliceByFilter(filter, fields, pageable);
+        }
 
         if (page.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -81,13 +126,105 @@ public class CarService {
         HashMap<String, Object> values = new HashMap<>();
         values.put("pageNumber", page.getNumber());
         values.put("pageSize", page.getSize());
-        values.put("totalPages", page.getTotalPages());
-        values.put("totalObjects", page.getTotalElements());
+        values.put("hasNext", page.hasNext());
+        if (count == CountMode.EXACT) {
+            Page<?> totals = (Page<?>) page;
+            values.put("totalPages", totals.getTotalPages());
+            values.put("totalObjects", totals.getTotalElements());
+        } else if (count == CountMode.ESTIMATE) {
+            long totalObjects = Math.max(carRepository.estimateCountByFilter(filter),
+                    pageable.getOffset() + page.getNumberOfElements());
+            values.put("totalPages", (totalObjects + pageSize - 1) / pageSize);
+            values.put("totalObjects", totalObjects);
+        }
         values.put("cars", page.getContent());
 
         return new ResponseEntity<>(values, HttpStatus.OK);
     }
 
+    public ResponseEntity<?> searchCars(String text, String cursor, int pageSize) {
+        KeysetSlice<CarEntity> slice = carRepository.findAllBySimilarity(text, cursor, pageSize);
+
+        if (slice.content().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("pageSize", pageSize);
+        values.put("nextCursor", slice.nextCursor());
+        values.put("cars", slice.content().stream()
+                .map(carMapper::toCarModel)
+                .toList());
+
+        return new ResponseEntity<>(values, HttpStatus.OK);
+    }
+
+    public ResponseEntity<?> getCarFacets(CarFilter filter) {
+        Map<String, List<FacetCount>> facets = carRepository.countFacetsByFilter(filter);
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("colors", facets.get("color"));
+        values.put("manufacturers", facets.get("manufacturer"));
+        values.put("employeeIds", facets.get("employee_id"));
+
+        return new ResponseEntity<>(values, HttpStatus.OK);
+    }
+
+    /**
+     * Number of matching rows from a single COUNT(*), or the planner estimate, without reading any row. The total
+     * is also sent as the X-Total-Count header, which is all a HEAD request gets.
+     */
+    public ResponseEntity<?> countCars(CarFilter filter, boolean estimate) {
+        long totalObjects = estimate
+                ? carRepository.estimateCountByFilter(filter)
+                : carRepository.countByFilter(filter);
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("totalObjects", totalObjects);
+
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(totalObjects))
+                .body(values);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportCars(CarFilter filter, ExportFormat format) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        StreamingResponseBody body = outputStream -> transaction.executeWithoutResult(status -> {
+            try (Stream<Car> cars = carRepository.streamByFilter(filter).map(carMapper::toCarModel)) {
+                exportWriter.write(cars, Car.class, format, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .body(body);
+    }
+
+    /**
+     * Cars with the given ids in request order, read in one query. Unknown ids are returned as {@code null}
+     * entries and listed in {@code notFoundIds}.
+     */
+    public ResponseEntity<?> getCarsByIds(List<Long> ids) {
+        Map<Long, Car> found = carRepository.findAllByIds(ids).stream()
+                .map(carMapper::toCarModel)
+                .collect(Collectors.toMap(Car::getId, Function.identity()));
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("cars", ids.stream()
+                .map(found::get)
+                .toList());
+        values.put("notFoundIds", ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .distinct()
+                .toList());
+
+        return new ResponseEntity<>(values, HttpStatus.OK);
+    }
+
     public Car getCarById(Long carId) {
         return carMapper.toCarModel(
                 carRepository.findById(carId)
@@ -96,7 +233,9 @@ public class CarService {
     }
 
     public List<Car> getCarsByEmployeeId(Long employeeId) {
-        return carRepository.findAllCarsByEmployeeId(employeeId).stream()
+        List<CarEntity> cars = ResultLimit.requireWithinLimit(
+                carRepository.findAllCarsByEmployeeId(employeeId, ResultLimit.firstRows()), "cars");
+        return cars.stream()
                 .map(carMapper::toCarModel)
                 .collect(Collectors.toList());
     }
@@ -113,6 +252,168 @@ public class CarService {
         return carMapper.toCarModel(carRepository.save(carEntity));
     }
 
+    /**
+     * Creates all cars in one insert. Referenced employees and taken VINs are looked up in one query each; cars
+     * that fail a check, or repeat the VIN of an earlier item, are reported as failed and the others are still
+     * created.
+     */
+    public ResponseEntity<?> saveCars(List<CreateCarRequest> createCarRequests) {
+        List<Long> employeeIds = createCarRequests.stream()
+                .map(CreateCarRequest::getEmployeeId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        List<String> vinNumbers = createCarRequests.stream()
+                .map(CreateCarRequest::getVinNumber)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<BulkItemResult> results = new TransactionTemplate(transactionManager).execute(status -> {
+            Set<Long> knownEmployeeIds = knownEmployeeIds(employeeIds);
+            Set<String> takenVinNumbers = new HashSet<>(vinNumbers.isEmpty()
+                    ? Set.of()
+                    : carRepository.findIdsByVinNumbers(vinNumbers).keySet());
+
+            return BulkResults.create(createCarRequests,
+                    request -> {
+                        if (request.getEmployeeId() != null && !knownEmployeeIds.contains(request.getEmployeeId())) {
+                            return "Employee with " + request.getEmployeeId() + " id was not found";
+                        }
+                        if (request.getVinNumber() != null && !takenVinNumbers.add(request.getVinNumber())) {
+                            return "Car with " + request.getVinNumber() + " vin number already exist";
+                        }
+                        return null;
+                    },
+                    this::toNewCarEntity,
+                    carRepository::insertAll);
+        });
+
+        return BulkResults.response(results);
+    }
+
+    /**
+     * Creates the car with the given VIN, or replaces the car that has it, with a single upsert. Answers
+     * {@code 201} when the car was created and {@code 200} when it was replaced.
+     */
+    public ResponseEntity<Car> upsertCarByVin(String vinNumber, CreateCarRequest createCarRequest) {
+        CarEntity carEntity = toNewCarEntity(createCarRequest);
+        carEntity.setVinNumber(vinNumber);
+
+        Upserted<CarEntity> upserted = new TransactionTemplate(transactionManager).execute(status -> {
+            if (createCarRequest.getEmployeeId() != null && !employeeRepository.existsById(createCarRequest.getEmployeeId())) {
+                throw new EntityNotFoundException("Employee with " + createCarRequest.getEmployeeId() + " id was not found");
+            }
+            return carRepository.upsertByVinNumber(carEntity);
+        });
+
+        return new ResponseEntity<>(carMapper.toCarModel(upserted.row()),
+                upserted.created() ? HttpStatus.CREATED : HttpStatus.OK);
+    }
+
+    /**
+     * Creates or replaces all cars by VIN with a single upsert. Referenced employees are looked up in one query;
+     * cars without a VIN, naming an unknown employee or repeating the VIN of an earlier item are reported as failed.
+     */
+    public ResponseEntity<?> upsertCarsByVin(List<CreateCarRequest> createCarRequests) {
+        List<Long> employeeIds = createCarRequests.stream()
+                .map(CreateCarRequest::getEmployeeId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<BulkItemResult> results = new TransactionTemplate(transactionManager).execute(status -> {
+            Set<Long> knownEmployeeIds = knownEmployeeIds(employeeIds);
+            Set<String> vinNumbers = new HashSet<>();
+
+            return BulkResults.upsert(createCarRequests,
+                    request -> {
+                        if (request.getVinNumber() == null) {
+                            return "Vin number is required";
+                        }
+                        if (request.getEmployeeId() != null && !knownEmployeeIds.contains(request.getEmployeeId())) {
+                            return "Employee with " + request.getEmployeeId() + " id was not found";
+                        }
+                        if (!vinNumbers.add(request.getVinNumber())) {
+                            return "Car with " + request.getVinNumber() + " vin number is repeated in the request";
+                        }
+                        return null;
+                    },
+                    this::toNewCarEntity,
+                    carRepository::upsertAllByVinNumber);
+        });
+
+        return BulkResults.response(results);
+    }
+
+    /**
+     * Applies the changes of every item, or one change set to every car matching the filter, with a single
+     * update. Referenced employees and taken VINs are looked up in one query each. A VIN can only be changed per
+     * item, since it has to stay unique. The unique index is checked row by row while the update runs, so items
+     * that swap VINs, or take the VIN another item of the batch gives up, are rejected as taken.
+     */
+    public ResponseEntity<?> updateCars(BulkUpdateRequest<CarFilter, UpdateCarRequest> bulkUpdateRequest) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        if (bulkUpdateRequest.getItems() == null) {
+            UpdateCarRequest changes = bulkUpdateRequest.getChanges();
+            if (changes.getVinNumber() != null) {
+                throw new PerItemChangeException("vinNumber");
+            }
+            Integer updated = transaction.execute(status -> {
+                if (changes.getEmployeeId() != null && !employeeRepository.existsById(changes.getEmployeeId())) {
+                    throw new EntityNotFoundException("Employee with " + changes.getEmployeeId() + " id was not found");
+                }
+                return carRepository.updateAllByFilter(bulkUpdateRequest.getFilter(), toCarChanges(changes));
+            });
+
+            HashMap<String, Object> values = new HashMap<>();
+            values.put("updated", updated);
+            return new ResponseEntity<>(values, HttpStatus.OK);
+        }
+
+        List<Long> employeeIds = bulkUpdateRequest.getItems().stream()
+                .map(item -> item.getChanges().getEmployeeId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        List<String> vinNumbers = bulkUpdateRequest.getItems().stream()
+                .map(item -> item.getChanges().getVinNumber())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<BulkItemResult> results = transaction.execute(status -> {
+            Set<Long> knownEmployeeIds = knownEmployeeIds(employeeIds);
+            Map<String, Long> vinNumberOwners = new HashMap<>(vinNumbers.isEmpty()
+                    ? Map.of()
+                    : carRepository.findIdsByVinNumbers(vinNumbers));
+
+            return BulkResults.update("Car", bulkUpdateRequest.getItems(),
+                    item -> {
+                        UpdateCarRequest changes = item.getChanges();
+                        if (changes.getEmployeeId() != null && !knownEmployeeIds.contains(changes.getEmployeeId())) {
+                            return "Employee with " + changes.getEmployeeId() + " id was not found";
+                        }
+                        if (changes.getVinNumber() != null) {
+                            Long owner = vinNumberOwners.putIfAbsent(changes.getVinNumber(), item.getId());
+                            if (owner != null && !owner.equals(item.getId())) {
+                                return "Car with " + changes.getVinNumber() + " vin number already exist";
+                            }
+                        }
+                        return null;
+                    },
+                    item -> {
+                        CarEntity carEntity = toCarChanges(item.getChanges());
+                        carEntity.setId(item.getId());
+                        return carEntity;
+                    },
+                    carRepository::updateAll);
+        });
+
+        return BulkResults.response(results);
+    }
+
     public Car updateCar(UpdateCarRequest updateCarRequest, Long carId) {
         CarEntity carEntity = carRepository.findById(carId)
                 .orElseThrow(() -> new EntityNotFoundException("Car with " + carId + " id was not found"));
@@ -134,6 +435,45 @@ public class CarService {
         if (!carRepository.existsById(carId)) {
             throw new EntityNotFoundException("Car with " + carId + " id was not found");
         }
-        carRepository.deleteById(carId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            carRepository.deleteById(carId);
+            tombstoneRepository.save(TombstoneEntity.builder().entityType(TombstoneEntity.CAR).entityId(carId).build());
+        });
+    }
+
+    /**
+     * Deletes the given cars in one statement.
+     */
+    public ResponseEntity<?> deleteCars(List<Long> carIds) {
+        List<BulkItemResult> results = new TransactionTemplate(transactionManager).execute(status ->
+                BulkResults.delete("Car", carIds, carRepository::deleteAllByIds,
+                        id -> "Unable to delete car with id " + id));
+
+        return BulkResults.response(results);
+    }
+
+    private CarEntity toNewCarEntity(CreateCarRequest createCarRequest) {
+        CarEntity carEntity = carMapper.toCarEntity(createCarRequest);
+        if (createCarRequest.getEmployeeId() != null) {
+            carEntity.setEmployee(EmployeeEntity.builder().id(createCarRequest.getEmployeeId()).build());
+        }
+        return carEntity;
+    }
+
+    /**
+     * Entity holding only the given changes; unchanged fields stay {@code null}.
+     */
+    private CarEntity toCarChanges(UpdateCarRequest changes) {
+        CarEntity carEntity = carMapper.toCarEntity(changes, new CarEntity());
+        if (changes.getEmployeeId() != null) {
+            carEntity.setEmployee(EmployeeEntity.builder().id(changes.getEmployeeId()).build());
+        }
+        return carEntity;
+    }
+
+    private Set<Long> knownEmployeeIds(List<Long> employeeIds) {
+        return employeeIds.isEmpty() ? Set.of() : employeeRepository.findAllByIds(employeeIds).stream()
+                .map(EmployeeEntity::getId)
+                .collect(Collectors.toSet());
     }
 }
@@ -1,68 +1,132 @@
 package com.griddynamics.cd.service;
 
+import com.griddynamics.cd.entity.CarEntity;
 import com.griddynamics.cd.entity.DepartmentEntity;
-import com.griddynamics.cd.exception.ColumnNotFoundException;
+import com.griddynamics.cd.entity.EmployeeEntity;
+import com.griddynamics.cd.entity.TombstoneEntity;
 import com.griddynamics.cd.exception.EntityDeleteException;
+import com.griddynamics.cd.mapper.CarMapper;
 import com.griddynamics.cd.mapper.DepartmentMapper;
+import com.griddynamics.cd.mapper.EmployeeMapper;
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.Car;
+import com.griddynamics.cd.model.CountMode;
 import com.griddynamics.cd.model.Department;
-import com.griddynamics.cd.model.DepartmentType;
+import com.griddynamics.cd.model.Employee;
+import com.griddynamics.cd.model.ExportFormat;
 import com.griddynamics.cd.model.create.CreateDepartmentRequest;
+import com.griddynamics.cd.model.filter.DepartmentFilter;
 import com.griddynamics.cd.model.update.UpdateDepartmentRequest;
+import com.griddynamics.cd.repository.CarRepository;
 import com.griddynamics.cd.repository.DepartmentRepository;
 import com.griddynamics.cd.repository.EmployeeRepository;
-import com.vladmihalcea.hibernate.type.array.StringArrayType;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.repository.query.KeysetSlice;
 import lombok.AllArgsConstructor;
-import org.hibernate.jpa.TypedParameterValue;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class DepartmentService {
 
+    private static final Set<String> EXPANSIONS = Set.of("employees", "employees.cars");
+
     private final DepartmentRepository departmentRepository;
     private final EmployeeRepository employeeRepository;
+    private final CarRepository carRepository;
+    private final TombstoneRepository tombstoneRepository;
     private final DepartmentMapper departmentMapper;
+    private final EmployeeMapper employeeMapper;
+    private final CarMapper carMapper;
+    private final ExportWriter exportWriter;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Every department, read as one chunk one row larger than the bound, so a larger table fails before a second chunk.
+     */
+    public List<Department> getAllDepartments() {
+        List<Department> departments = new ArrayList<>();
+        forEachDepartmentChunk(new DepartmentFilter(), ResultLimit.MAX_RESULT_SIZE + 1,
+                chunk -> departments.addAll(ResultLimit.requireWithinLimit(chunk, "departments")));
+        return departments;
+    }
 
-    public ResponseEntity<?> getAllDepartments(List<String> names,
-                                               List<String> emails,
-                                               List<String> descriptions,
-                                               List<DepartmentType> departmentTypes,
+    /**
+     * Hands every department matching the filter to {@code action} in id order, {@code chunkSize} departments at a time.
+     */
+    public void forEachDepartmentChunk(DepartmentFilter filter, int chunkSize, Consumer<List<Department>> action) {
+        departmentRepository.forEachChunkByFilter(filter, chunkSize, chunk -> action.accept(chunk.stream()
+                .map(departmentMapper::toDepartmentModel)
+                .toList()));
+    }
+
+    public ResponseEntity<?> getAllDepartments(DepartmentFilter filter,
+                                               List<String> fields,
                                                int pageNumber,
                                                int pageSize,
                                                String orderBy,
-                                               Sort.Direction order) {
-        if (!departmentRepository.existsByColumnName(orderBy)) {
-            throw new ColumnNotFoundException(orderBy);
+                                               Sort.Direction order,
+                                               Sort sort,
+                                               String cursor,
+                                               CountMode count) {
+        Sort sorting = SortOrders.resolve(sort, orderBy, order, departmentRepository::existsByColumnName);
+
+        if (cursor != null) {
+            Sort.Order seek = SortOrders.single(sorting, cursor);
+            KeysetSlice<?> slice = fields == null
+                    ? departmentRepository.findAllByFilterAfterCursor(filter, seek.getProperty(), seek.getDirection(), cursor, pageSize).map(departmentMapper::toDepartmentModel)
+                    : departmentRepository.findAllByFilterAfterCursor(filter, fields, seek.getProperty(), seek.getDirection(), cursor, pageSize);
+
+            if (slice.content().isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            HashMap<String, Object> values = new HashMap<>();
+            values.put("pageSize", pageSize);
+            values.put("nextCursor", slice.nextCursor());
+            values.put("departments", slice.content());
+
+            return new ResponseEntity<>(values, HttpStatus.OK);
         }
 
-        Page<Department> page = new PageImpl<>(departmentRepository.findAllByFilterParamsAndSortAndPaged(
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(names).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(emails).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(descriptions).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(departmentTypes).map(list -> list.stream()
-                                                .map(DepartmentType::name)
-                                                .toArray(String[]::new))
-                                        .orElse(null)),
-                        PageRequest.of(pageNumber, pageSize, Sort.by(order, orderBy))).stream()
-                .map(departmentMapper::toDepartmentModel)
-                .toList()
-        );
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, sorting);
+        Slice<?> page;
+        if (fields == null) {
+            page = count == CountMode.EXACT
+                    ? departmentRepository.findAllByFilter(filter, pageable).map(departmentMapper::toDepartmentModel)
+                    : departmentRepository.findSliceByFilter(filter, pageable).map(departmentMapper::toDepartmentModel);
+        } else {
+            page = count == CountMode.EXACT
+                    ? departmentRepository.findAllByFilter(filter, fields, pageable)
+                    : departmentRepository.findSliceByFilter(filter, fields, pageable);
+        }
 
         if (page.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -71,43 +135,152 @@ public class DepartmentService {
         HashMap<String, Object> values = new HashMap<>();
         values.put("pageNumber", page.getNumber());
         values.put("pageSize", page.getSize());
-        values.put("totalPages", page.getTotalPages());
-        values.put("totalObjects", page.getTotalElements());
+        values.put("hasNext", page.hasNext());
+        if (count == CountMode.EXACT) {
+            Page<?> totals = (Page<?>) page;
+            values.put("totalPages", totals.getTotalPages());
+            values.put("totalObjects", totals.getTotalElements());
+        } else if (count == CountMode.ESTIMATE) {
+            long totalObjects = Math.max(departmentRepository.estimateCountByFilter(filter),
+                    pageable.getOffset() + page.getNumberOfElements());
+            values.put("totalPages", (totalObjects + pageSize - 1) / pageSize);
+            values.put("totalObjects", totalObjects);
+        }
         values.put("departments", page.getContent());
 
         return new ResponseEntity<>(values, HttpStatus.OK);
     }
 
-    public Department getDepartmentById(Long departmentId) {
-        return departmentMapper.toDepartmentModel(
+    /**
+     * Number of matching rows from a single COUNT(*), or the planner estimate, without reading any row. The total
+     * is also sent as the X-Total-Count header, which is all a HEAD request gets.
+     */
+    public ResponseEntity<?> countDepartments(DepartmentFilter filter, boolean estimate) {
+        long totalObjects = estimate
+                ? departmentRepository.estimateCountByFilter(filter)
+                : departmentRepository.countByFilter(filter);
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("totalObjects", totalObjects);
+
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(totalObjects))
+                .body(values);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportDepartments(DepartmentFilter filter, ExportFormat format) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        StreamingResponseBody body = outputStream -> transaction.executeWithoutResult(status -> {
+            try (Stream<Department> departments = departmentRepository.streamByFilter(filter).map(departmentMapper::toDepartmentModel)) {
+                exportWriter.write(departments, Department.class, format, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .body(body);
+    }
+
+    /**
+     * Departments with the given ids in request order, read in one query. Unknown ids are returned as {@code null}
+     * entries and listed in {@code notFoundIds}.
+     */
+    public ResponseEntity<?> getDepartmentsByIds(List<Long> ids) {
+        Map<Long, Department> found = departmentRepository.findAllByIds(ids).stream()
+                .map(departmentMapper::toDepartmentModel)
+                .collect(Collectors.toMap(Department::getId, Function.identity()));
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("departments", ids.stream()
+                .map(found::get)
+                .toList());
+        values.put("notFoundIds", ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .distinct()
+                .toList());
+
+        return new ResponseEntity<>(values, HttpStatus.OK);
+    }
+
+    /**
+     * {@code expand=employees} embeds the department's employees and {@code expand=employees.cars} also their
+     * cars. Each level is read with one query, cars with an {@code IN} over all employee ids, so the number of
+     * statements does not depend on the number of employees. The transaction keeps the parents in the
+     * persistence context, so the eager many-to-one associations back to them need no further selects.
+     */
+    @Transactional(readOnly = true)
+    public Department getDepartmentById(Long departmentId, List<String> expand) {
+        Set<String> expansions = Expansions.parse(expand, EXPANSIONS);
+        Department department = departmentMapper.toDepartmentModel(
                 departmentRepository.findById(departmentId)
                         .orElseThrow(() -> new EntityNotFoundException("Department with " + departmentId + " id was not found"))
         );
-    }
 
-    public Department saveDepartment(CreateDepartmentRequest createDepartmentRequest) {
-        if (createDepartmentRequest.getEmail() != null) {
-            if (departmentRepository.existsByEmail(createDepartmentRequest.getEmail())) {
-                throw new EntityExistsException("Department with " + createDepartmentRequest.getEmail() + " email already exist");
-            }
+        if (expansions.isEmpty()) {
+            return department;
+        }
+
+        List<EmployeeEntity> employeeEntities = ResultLimit.requireWithinLimit(
+                employeeRepository.findAllEmployeesByDepartmentId(departmentId, ResultLimit.firstRows()), "employees");
+        List<Employee> employees = employeeEntities.stream()
+                .map(employeeMapper::toEmployeeModel)
+                .toList();
+
+        if (expansions.contains("employees.cars") && !employees.isEmpty()) {
+            List<CarEntity> carEntities = ResultLimit.requireWithinLimit(carRepository.findAllByEmployeeIdIn(
+                    employees.stream().map(Employee::getId).toList(), ResultLimit.firstRows()), "cars");
+            Map<Long, List<Car>> carsByEmployeeId = carEntities.stream()
+                    .map(carMapper::toCarModel)
+                    .collect(Collectors.groupingBy(Car::getEmployeeId));
+            employees.forEach(employee -> employee.setCars(carsByEmployeeId.getOrDefault(employee.getId(), List.of())));
         }
 
+        department.setEmployees(employees);
+        return department;
+    }
+
+    public Department saveDepartment(CreateDepartmentRequest createDepartmentRequest) {
         return departmentMapper.toDepartmentModel(
                 departmentRepository.save(
                         departmentMapper.toDepartmentEntity(createDepartmentRequest))
         );
     }
 
+    /**
+     * Creates all departments in one insert. Taken emails are looked up in one query; departments whose email is
+     * taken, or repeats the email of an earlier item, are reported as failed and the others are still created.
+     */
+    public ResponseEntity<?> saveDepartments(List<CreateDepartmentRequest> createDepartmentRequests) {
+        List<String> emails = createDepartmentRequests.stream()
+                .map(CreateDepartmentRequest::getEmail)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<BulkItemResult> results = new TransactionTemplate(transactionManager).execute(status -> {
+            Set<String> takenEmails = new HashSet<>(emails.isEmpty()
+                    ? List.of()
+                    : departmentRepository.findExistingEmails(emails));
+
+            return BulkResults.create(createDepartmentRequests,
+                    request -> request.getEmail() == null || takenEmails.add(request.getEmail())
+                            ? null
+                            : "Department with " + request.getEmail() + " email already exist",
+                    departmentMapper::toDepartmentEntity,
+                    departmentRepository::insertAll);
+        });
+
+        return BulkResults.response(results);
+    }
+
     public Department updateDepartment(UpdateDepartmentRequest updateDepartmentRequest, Long departmentId) {
         DepartmentEntity departmentEntity = departmentRepository.findById(departmentId)
                 .orElseThrow(() -> new EntityNotFoundException("Department with " + departmentId + " id was not found"));
 
-        if (updateDepartmentRequest.getEmail() != null) {
-            if (departmentRepository.existsByEmailAndIdIsNot(updateDepartmentRequest.getEmail(), departmentId)) {
-                throw new EntityExistsException("Department with " + updateDepartmentRequest.getEmail() + " email already exist");
-            }
-        }
-
         return departmentMapper.toDepartmentModel(
                 departmentRepository.save(
                         departmentMapper.toDepartmentEntity(updateDepartmentRequest, departmentEntity)
@@ -120,10 +293,25 @@ public class DepartmentService {
             throw new EntityNotFoundException("Department with " + departmentId + " id was not found");
         }
 
-        if (!employeeRepository.findAllEmployeesByDepartmentId(departmentId).isEmpty()) {
+        if (employeeRepository.existsByDepartmentId(departmentId)) {
             throw new EntityDeleteException("Unable to delete department with id " + departmentId);
         }
 
-        departmentRepository.deleteById(departmentId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            departmentRepository.deleteById(departmentId);
+            tombstoneRepository.save(TombstoneEntity.builder().entityType(TombstoneEntity.DEPARTMENT).entityId(departmentId).build());
+        });
+    }
+
+    /**
+     * Deletes the given departments in one statement; departments still referenced by other rows are kept and reported as
+     * failed items.
+     */
+    public ResponseEntity<?> deleteDepartments(List<Long> departmentIds) {
+        List<BulkItemResult> results = new TransactionTemplate(transactionManager).execute(status ->
+                BulkResults.delete("Department", departmentIds, departmentRepository::deleteAllByIds,
+                        id -> "Unable to delete department with id " + id));
+
+        return BulkResults.response(results);
     }
 }
@@ -1,87 +1,130 @@
 package com.griddynamics.cd.service;
 
+import com.griddynamics.cd.entity.CarEntity;
 import com.griddynamics.cd.entity.DepartmentEntity;
 import com.griddynamics.cd.entity.EmployeeEntity;
-import com.griddynamics.cd.exception.ColumnNotFoundException;
+import com.griddynamics.cd.entity.TombstoneEntity;
 import com.griddynamics.cd.exception.EntityDeleteException;
+import com.griddynamics.cd.exception.PerItemChangeException;
+import com.griddynamics.cd.mapper.CarMapper;
 import com.griddynamics.cd.mapper.EmployeeMapper;
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.CountMode;
 import com.griddynamics.cd.model.Employee;
+import com.griddynamics.cd.model.ExportFormat;
 import com.griddynamics.cd.model.create.CreateEmployeeRequest;
+import com.griddynamics.cd.model.filter.EmployeeFilter;
+import com.griddynamics.cd.model.update.BulkUpdateRequest;
 import com.griddynamics.cd.model.update.UpdateEmployeeRequest;
 import com.griddynamics.cd.repository.CarRepository;
 import com.griddynamics.cd.repository.DepartmentRepository;
 import com.griddynamics.cd.repository.EmployeeRepository;
-import com.vladmihalcea.hibernate.type.array.DateArrayType;
-import com.vladmihalcea.hibernate.type.array.LongArrayType;
-import com.vladmihalcea.hibernate.type.array.StringArrayType;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.repository.query.KeysetSlice;
 import lombok.AllArgsConstructor;
-import org.hibernate.jpa.TypedParameterValue;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
-import java.sql.Date;
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class EmployeeService {
 
+    private static final Set<String> EXPANSIONS = Set.of("cars");
+
     private final EmployeeRepository employeeRepository;
     private final DepartmentRepository departmentRepository;
     private final CarRepository carRepository;
+    private final TombstoneRepository tombstoneRepository;
     private final EmployeeMapper employeeMapper;
+    private final CarMapper carMapper;
+    private final ExportWriter exportWriter;
+    private final PlatformTransactionManager transactionManager;
 
+    /**
+     * Every employee, read as one chunk one row larger than the bound, so a larger table fails before a second chunk.
+     */
     public List<Employee> getAllEmployees() {
-        return employeeRepository.findAll().stream()
+        List<Employee> employees = new ArrayList<>();
+        forEachEmployeeChunk(new EmployeeFilter(), ResultLimit.MAX_RESULT_SIZE + 1,
+                chunk -> employees.addAll(ResultLimit.requireWithinLimit(chunk, "employees")));
+        return employees;
+    }
+
+    /**
+     * Hands every employee matching the filter to {@code action} in id order, {@code chunkSize} employees at a time.
+     */
+    public void forEachEmployeeChunk(EmployeeFilter filter, int chunkSize, Consumer<List<Employee>> action) {
+        employeeRepository.forEachChunkByFilter(filter, chunkSize, chunk -> action.accept(chunk.stream()
                 .map(employeeMapper::toEmployeeModel)
-                .toList();
+                .toList()));
     }
 
-    public ResponseEntity<?> getAllEmployees(List<String> firstNames,
-                                             List<String> lastNames,
-                                             List<LocalDate> birthdays,
-                                             List<String> addresses,
-                                             List<String> phoneNumbers,
-                                             List<Long> departmentIds,
+    public ResponseEntity<?> getAllEmployees(EmployeeFilter filter,
+                                             List<String> fields,
                                              int pageNumber,
                                              int pageSize,
                                              String orderBy,
-                                             Sort.Direction order) {
-        if (!employeeRepository.existsByColumnName(orderBy)) {
-            throw new ColumnNotFoundException(orderBy);
+                                             Sort.Direction order,
+                                             Sort sort,
+                                             String cursor,
+                                             CountMode count) {
+        Sort sorting = SortOrders.resolve(sort, orderBy, order, employeeRepository::existsByColumnName);
+
+        if (cursor != null) {
+            Sort.Order seek = SortOrders.single(sorting, cursor);
+            KeysetSlice<?> slice = fields == null
+                    ? employeeRepository.findAllByFilterAfterCursor(filter, seek.getProperty(), seek.getDirection(), cursor, pageSize).map(employeeMapper::toEmployeeModel)
+                    : employeeRepository.findAllByFilterAfterCursor(filter, fields, seek.getProperty(), seek.getDirection(), cursor, pageSize);
+
+            if (slice.content().isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+
+            HashMap<String, Object> values = new HashMap<>();
+            values.put("pageSize", pageSize);
+            values.put("nextCursor", slice.nextCursor());
+            values.put("employees", slice.content());
+
+            return new ResponseEntity<>(values, HttpStatus.OK);
         }
 
-        Page<Employee> page = new PageImpl<>(employeeRepository.findAllByFilterParamsAndSortAndPaged(
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(firstNames).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(lastNames).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(DateArrayType.INSTANCE,
-                                Optional.ofNullable(birthdays).map(list -> list.stream()
-                                                .map(Date::valueOf)
-                                                .toArray(Date[]::new))
-                                        .orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(addresses).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(StringArrayType.INSTANCE,
-                                Optional.ofNullable(phoneNumbers).map(list -> list.toArray(String[]::new)).orElse(null)),
-                        new TypedParameterValue(LongArrayType.INSTANCE,
-                                Optional.ofNullable(departmentIds).map(list -> list.toArray(Long[]::new)).orElse(null)),
-                        PageRequest.of(pageNumber, pageSize, Sort.by(order, orderBy))).stream()
-                .map(employeeMapper::toEmployeeModel)
-                .toList()
-        );
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, sorting);
+        Slice<?> page;
+        if (fields == null) {
+            page = count == CountMode.EXACT
+                    ? employeeRepository.findAllByFilter(filter, pageable).map(employeeMapper::toEmployeeModel)
+                    : employeeRepository.findSliceByFilter(filter, pageable).map(employeeMapper::toEmployeeModel);
+        } else {
+            page = count == CountMode.EXACT
+                    ? employeeRepository.findAllByFilter(filter, fields, pageable)
+                    : employeeRepository.findSliceByFilter(filter, fields, pageable);
+        }
 
         if (page.isEmpty()) {
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
@@ -90,22 +133,120 @@ public class EmployeeService {
         HashMap<String, Object> values = new HashMap<>();
         values.put("pageNumber", page.getNumber());
         values.put("pageSize", page.getSize());
-        values.put("totalPages", page.getTotalPages());
-        values.put("totalObjects", page.getTotalElements());
+        values.put("hasNext", page.hasNext());
+        if (count == CountMode.EXACT) {
+            Page<?> totals = (Page<?>) page;
+            values.put("totalPages", totals.getTotalPages());
+            values.put("totalObjects", totals.getTotalElements());
+        } else if (count == CountMode.ESTIMATE) {
+            long totalObjects = Math.max(employeeRepository.estimateCountByFilter(filter),
+                    pageable.getOffset() + page.getNumberOfElements());
+            values.put("totalPages", (totalObjects + pageSize - 1) / pageSize);
+            values.put("totalObjects", totalObjects);
+        }
         values.put("employees", page.getContent());
 
         return new ResponseEntity<>(values, HttpStatus.OK);
     }
 
-    public Employee getEmployeeById(Long employeeId) {
-        return employeeMapper.toEmployeeModel(
+    public ResponseEntity<?> searchEmployees(String text, String cursor, int pageSize) {
+        KeysetSlice<EmployeeEntity> slice = employeeRepository.findAllBySimilarity(text, cursor, pageSize);
+
+        if (slice.content().isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("pageSize", pageSize);
+        values.put("nextCursor", slice.nextCursor());
+        values.put("employees", slice.content().stream()
+                .map(employeeMapper::toEmployeeModel)
+                .toList());
+
+        return new ResponseEntity<>(values, HttpStatus.OK);
+    }
+
+    /**
+     * Number of matching rows from a single COUNT(*), or the planner estimate, without reading any row. The total
+     * is also sent as the X-Total-Count header, which is all a HEAD request gets.
+     */
+    public ResponseEntity<?> countEmployees(EmployeeFilter filter, boolean estimate) {
+        long totalObjects = estimate
+                ? employeeRepository.estimateCountByFilter(filter)
+                : employeeRepository.countByFilter(filter);
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("totalObjects", totalObjects);
+
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(totalObjects))
+                .body(values);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportEmployees(EmployeeFilter filter, ExportFormat format) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        StreamingResponseBody body = outputStream -> transaction.executeWithoutResult(status -> {
+            try (Stream<Employee> employees = employeeRepository.streamByFilter(filter).map(employeeMapper::toEmployeeModel)) {
+                exportWriter.write(employees, Employee.class, format, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .body(body);
+    }
+
+    /**
+     * Employees with the given ids in request order, read in one query. Unknown ids are returned as {@code null}
+     * entries and listed in {@code notFoundIds}.
+     */
+    public ResponseEntity<?> getEmployeesByIds(List<Long> ids) {
+        Map<Long, Employee> found = employeeRepository.findAllByIds(ids).stream()
+                .map(employeeMapper::toEmployeeModel)
+                .collect(Collectors.toMap(Employee::getId, Function.identity()));
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put("employees", ids.stream()
+                .map(found::get)
+                .toList());
+        values.put("notFoundIds", ids.stream()
+                .filter(id -> !found.containsKey(id))
+                .distinct()
+                .toList());
+
+        return new ResponseEntity<>(values, HttpStatus.OK);
+    }
+
+    /**
+     * {@code expand=cars} embeds the employee's cars, read with one extra query. The transaction keeps the
+     * employee in the persistence context, so the eager car to employee association needs no further selects.
+     */
+    @Transactional(readOnly = true)
+    public Employee getEmployeeById(Long employeeId, List<String> expand) {
+        Set<String> expansions = Expansions.parse(expand, EXPANSIONS);
+        Employee employee = employeeMapper.toEmployeeModel(
                 employeeRepository.findById(employeeId)
                         .orElseThrow(() -> new EntityNotFoundException("Employee with " + employeeId + " id was not found"))
         );
+
+        if (expansions.contains("cars")) {
+            List<CarEntity> cars = ResultLimit.requireWithinLimit(
+                    carRepository.findAllCarsByEmployeeId(employeeId, ResultLimit.firstRows()), "cars");
+            employee.setCars(cars.stream()
+                    .map(carMapper::toCarModel)
+                    .toList());
+        }
+        return employee;
     }
 
     public List<Employee> getEmployeesByDepartmentId(Long departmentId) {
-        return employeeRepository.findAllEmployeesByDepartmentId(departmentId).stream()
+        List<EmployeeEntity> employees = ResultLimit.requireWithinLimit(
+                employeeRepository.findAllEmployeesByDepartmentId(departmentId, ResultLimit.firstRows()), "employees");
+        return employees.stream()
                 .map(employeeMapper::toEmployeeModel)
                 .collect(Collectors.toList());
     }
@@ -113,12 +254,6 @@ public class EmployeeService {
     public Employee saveEmployee(CreateEmployeeRequest employeeRequest) {
         EmployeeEntity employeeEntity = employeeMapper.toEmployeeEntity(employeeRequest);
 
-        if (employeeRequest.getPhoneNumber() != null) {
-            if (employeeRepository.existsByPhoneNumber(employeeRequest.getPhoneNumber())) {
-                throw new EntityExistsException("Employee with " + employeeRequest.getPhoneNumber() + " phone number already exist");
-            }
-        }
-
         if (employeeRequest.getDepartmentId() != null) {
             DepartmentEntity departmentEntity = departmentRepository.findById(employeeRequest.getDepartmentId())
                     .orElseThrow(() -> new EntityNotFoundException("Department with " + employeeRequest.getDepartmentId() + " id was not found"));
@@ -128,16 +263,125 @@ public class EmployeeService {
         return employeeMapper.toEmployeeModel(employeeRepository.save(employeeEntity));
     }
 
-    public Employee updateEmployee(UpdateEmployeeRequest updateEmployeeRequest, Long employeeId) {
-        EmployeeEntity employeeEntity = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new EntityNotFoundException("Employee with " + employeeId + " id was not found"));
+    /**
+     * Creates all employees in one insert. Referenced departments and taken phone numbers are looked up in one
+     * query each; employees that fail a check, or repeat a phone number of an earlier item, are reported as failed
+     * and the others are still created.
+     */
+    public ResponseEntity<?> saveEmployees(List<CreateEmployeeRequest> employeeRequests) {
+        List<Long> departmentIds = employeeRequests.stream()
+                .map(CreateEmployeeRequest::getDepartmentId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        List<String> phoneNumbers = employeeRequests.stream()
+                .map(CreateEmployeeRequest::getPhoneNumber)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<BulkItemResult> results = new TransactionTemplate(transactionManager).execute(status -> {
+            Set<Long> knownDepartmentIds = knownDepartmentIds(departmentIds);
+            Set<String> takenPhoneNumbers = new HashSet<>(phoneNumbers.isEmpty()
+                    ? List.of()
+                    : employeeRepository.findIdsByPhoneNumbers(phoneNumbers).keySet());
+
+            return BulkResults.create(employeeRequests,
+                    request -> {
+                        if (request.getDepartmentId() != null && !knownDepartmentIds.contains(request.getDepartmentId())) {
+                            return "Department with " + request.getDepartmentId() + " id was not found";
+                        }
+                        if (request.getPhoneNumber() != null && !takenPhoneNumbers.add(request.getPhoneNumber())) {
+                            return "Employee with " + request.getPhoneNumber() + " phone number already exist";
+                        }
+                        return null;
+                    },
+                    request -> {
+                        EmployeeEntity employeeEntity = employeeMapper.toEmployeeEntity(request);
+                        if (request.getDepartmentId() != null) {
+                            employeeEntity.setDepartment(DepartmentEntity.builder().id(request.getDepartmentId()).build());
+                        }
+                        return employeeEntity;
+                    },
+                    employeeRepository::insertAll);
+        });
 
-        if (updateEmployeeRequest.getPhoneNumber() != null) {
-            if (employeeRepository.existsByPhoneNumberAndIdIsNot(updateEmployeeRequest.getPhoneNumber(), employeeId)) {
-                throw new EntityExistsException("Employee with " + updateEmployeeRequest.getPhoneNumber() + " phone number already exist");
+        return BulkResults.response(results);
+    }
+
+    /**
+     * Applies the changes of every item, or one change set to every employee matching the filter, with a single
+     * update. Referenced departments and taken phone numbers are looked up in one query each. A phone number can
+     * only be changed per item, since it has to stay unique. The unique index is checked row by row while the update
+     * runs, so items that swap phone numbers, or take the number another item of the batch gives up, are rejected as
+     * taken; such moves need one request per step.
+     */
+    public ResponseEntity<?> updateEmployees(BulkUpdateRequest<EmployeeFilter, UpdateEmployeeRequest> bulkUpdateRequest) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        if (bulkUpdateRequest.getItems() == null) {
+            UpdateEmployeeRequest changes = bulkUpdateRequest.getChanges();
+            if (changes.getPhoneNumber() != null) {
+                throw new PerItemChangeException("phoneNumber");
             }
+            Integer updated = transaction.execute(status -> {
+                if (changes.getDepartmentId() != null && !departmentRepository.existsById(changes.getDepartmentId())) {
+                    throw new EntityNotFoundException("Department with " + changes.getDepartmentId() + " id was not found");
+                }
+                return employeeRepository.updateAllByFilter(bulkUpdateRequest.getFilter(), toEmployeeChanges(changes));
+            });
+
+            HashMap<String, Object> values = new HashMap<>();
+            values.put("updated", updated);
+            return new ResponseEntity<>(values, HttpStatus.OK);
         }
 
+        List<Long> departmentIds = bulkUpdateRequest.getItems().stream()
+                .map(item -> item.getChanges().getDepartmentId())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        List<String> phoneNumbers = bulkUpdateRequest.getItems().stream()
+                .map(item -> item.getChanges().getPhoneNumber())
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<BulkItemResult> results = transaction.execute(status -> {
+            Set<Long> knownDepartmentIds = knownDepartmentIds(departmentIds);
+            Map<String, Long> phoneNumberOwners = new HashMap<>(phoneNumbers.isEmpty()
+                    ? Map.of()
+                    : employeeRepository.findIdsByPhoneNumbers(phoneNumbers));
+
+            return BulkResults.update("Employee", bulkUpdateRequest.getItems(),
+                    item -> {
+                        UpdateEmployeeRequest changes = item.getChanges();
+                        if (changes.getDepartmentId() != null && !knownDepartmentIds.contains(changes.getDepartmentId())) {
+                            return "Department with " + changes.getDepartmentId() + " id was not found";
+                        }
+                        if (changes.getPhoneNumber() != null) {
+                            Long owner = phoneNumberOwners.putIfAbsent(changes.getPhoneNumber(), item.getId());
+                            if (owner != null && !owner.equals(item.getId())) {
+                                return "Employee with " + changes.getPhoneNumber() + " phone number already exist";
+                            }
+                        }
+                        return null;
+                    },
+                    item -> {
+                        EmployeeEntity employeeEntity = toEmployeeChanges(item.getChanges());
+                        employeeEntity.setId(item.getId());
+                        return employeeEntity;
+                    },
+                    employeeRepository::updateAll);
+        });
+
+        return BulkResults.response(results);
+    }
+
+    public Employee updateEmployee(UpdateEmployeeRequest updateEmployeeRequest, Long employeeId) {
+        EmployeeEntity employeeEntity = employeeRepository.findById(employeeId)
+                .orElseThrow(() -> new EntityNotFoundException("Employee with " + employeeId + " id was not found"));
+
         if (updateEmployeeRequest.getDepartmentId() != null) {
             DepartmentEntity departmentEntity = departmentRepository.findById(updateEmployeeRequest.getDepartmentId())
                     .orElseThrow(() -> new EntityNotFoundException("Department with " + updateEmployeeRequest.getDepartmentId() + " id was not found"));
@@ -156,10 +400,42 @@ public class EmployeeService {
             throw new EntityNotFoundException("Employee with " + employeeId + " id was not found");
         }
 
-        if (!carRepository.findAllCarsByEmployeeId(employeeId).isEmpty()) {
+        if (carRepository.existsByEmployeeId(employeeId)) {
             throw new EntityDeleteException("Unable to delete employee with id " + employeeId);
         }
 
-        employeeRepository.deleteById(employeeId);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            employeeRepository.deleteById(employeeId);
+            tombstoneRepository.save(TombstoneEntity.builder().entityType(TombstoneEntity.EMPLOYEE).entityId(employeeId).build());
+        });
+    }
+
+    /**
+     * Deletes the given employees in one statement; employees still referenced by other rows are kept and reported as
+     * failed items.
+     */
+    public ResponseEntity<?> deleteEmployees(List<Long> employeeIds) {
+        List<BulkItemResult> results = new TransactionTemplate(transactionManager).execute(status ->
+                BulkResults.delete("Employee", employeeIds, employeeRepository::deleteAllByIds,
+                        id -> "Unable to delete employee with id " + id));
+
+        return BulkResults.response(results);
+    }
+
+    /**
+     * Entity holding only the given changes; unchanged fields stay {@code null}.
+     */
+    private EmployeeEntity toEmployeeChanges(UpdateEmployeeRequest changes) {
+        EmployeeEntity employeeEntity = employeeMapper.toEmployeeEntity(changes, new EmployeeEntity());
+        if (changes.getDepartmentId() != null) {
+            employeeEntity.setDepartment(DepartmentEntity.builder().id(changes.getDepartmentId()).build());
+        }
+        return employeeEntity;
+    }
+
+    private Set<Long> knownDepartmentIds(List<Long> departmentIds) {
+        return departmentIds.isEmpty() ? Set.of() : departmentRepository.findAllByIds(departmentIds).stream()
+                .map(DepartmentEntity::getId)
+                .collect(Collectors.toSet());
     }
 }
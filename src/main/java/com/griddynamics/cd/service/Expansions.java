@@ -0,0 +1,27 @@
+package com.griddynamics.cd.service;
+
+import com.griddynamics.cd.exception.ExpandNotSupportedException;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validation of {@code expand} paths; each path names a related collection to embed, nested with dots.
+ */
+final class Expansions {
+
+    private Expansions() {
+    }
+
+    static Set<String> parse(List<String> expand, Set<String> supported) {
+        if (expand == null) {
+            return Set.of();
+        }
+        for (String path : expand) {
+            if (!supported.contains(path)) {
+                throw new ExpandNotSupportedException(path);
+            }
+        }
+        return Set.copyOf(expand);
+    }
+}
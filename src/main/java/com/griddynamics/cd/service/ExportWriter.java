@@ -0,0 +1,87 @@
+package com.griddynamics.cd.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.griddynamics.cd.model.ExportFormat;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of models row by row, so memory use does not depend on the number of rows.
+ * Both formats use the JSON property names and value formats of the model.
+ */
+@Component
+@AllArgsConstructor
+public class ExportWriter {
+
+    private final ObjectMapper objectMapper;
+
+    public <T> void write(Stream<T> rows, Class<T> type, ExportFormat format, OutputStream outputStream) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsv(rows, type, outputStream);
+        } else {
+            writeNdjson(rows, type, outputStream);
+        }
+    }
+
+    private <T> void writeNdjson(Stream<T> rows, Class<T> type, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        ObjectWriter objectWriter = objectMapper.writerFor(type);
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writer.write(objectWriter.writeValueAsString(iterator.next()));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private <T> void writeCsv(Stream<T> rows, Class<T> type, OutputStream outputStream) throws IOException {
+        List<String> header = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(type))
+                .findProperties().stream()
+                // expanded collections have no flat representation
+                .filter(property -> !property.getPrimaryType().isContainerType())
+                .map(BeanPropertyDefinition::getName)
+                .toList();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writeCsvLine(writer, header);
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            Map<?, ?> values = objectMapper.convertValue(iterator.next(), Map.class);
+            writeCsvLine(writer, header.stream()
+                    .map(name -> values.get(name) == null ? "" : values.get(name).toString())
+                    .toList());
+        }
+        writer.flush();
+    }
+
+    private void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    private String escapeCsv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
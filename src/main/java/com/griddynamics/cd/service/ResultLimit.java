@@ -0,0 +1,32 @@
+package com.griddynamics.cd.service;
+
+import com.griddynamics.cd.exception.ResultTooLargeException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * Bound for service methods that return a plain list. They read one row past the bound and fail instead of
+ * silently truncating; larger results have to be paged, exported or read in chunks.
+ */
+final class ResultLimit {
+
+    static final int MAX_RESULT_SIZE = 1000;
+
+    private ResultLimit() {
+    }
+
+    static Pageable firstRows() {
+        return PageRequest.of(0, MAX_RESULT_SIZE + 1, Sort.by("id"));
+    }
+
+    static <T> List<T> requireWithinLimit(List<T> rows, String entityName) {
+        if (rows.size() > MAX_RESULT_SIZE) {
+            throw new ResultTooLargeException("Result contains more than " + MAX_RESULT_SIZE + " " + entityName
+                    + ", use paging, export or chunked reads instead");
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,37 @@
+package com.griddynamics.cd.service;
+
+import com.griddynamics.cd.exception.ColumnNotFoundException;
+import com.griddynamics.cd.exception.InvalidCursorException;
+import org.springframework.data.domain.Sort;
+
+import java.util.function.Predicate;
+
+/**
+ * Sort of a list request: the repeated {@code sort=column,direction} parameter when given, otherwise the single
+ * {@code orderBy}/{@code order} pair. The repository appends {@code id} as the last key of offset pages.
+ */
+final class SortOrders {
+
+    private SortOrders() {
+    }
+
+    static Sort resolve(Sort sort, String orderBy, Sort.Direction order, Predicate<String> columnExists) {
+        Sort resolved = sort != null && sort.isSorted() ? sort : Sort.by(order, orderBy);
+        resolved.forEach(sortOrder -> {
+            if (!columnExists.test(sortOrder.getProperty())) {
+                throw new ColumnNotFoundException(sortOrder.getProperty());
+            }
+        });
+        return resolved;
+    }
+
+    /**
+     * Cursors seek on a single column plus {@code id}, so a cursor page accepts only one sort key.
+     */
+    static Sort.Order single(Sort sort, String cursor) {
+        if (sort.toList().size() > 1) {
+            throw new InvalidCursorException(cursor);
+        }
+        return sort.toList().get(0);
+    }
+}
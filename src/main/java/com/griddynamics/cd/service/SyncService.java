@@ -0,0 +1,79 @@
+package com.griddynamics.cd.service;
+
+import com.griddynamics.cd.entity.TombstoneEntity;
+import com.griddynamics.cd.exception.SyncNotSupportedException;
+import com.griddynamics.cd.mapper.CarMapper;
+import com.griddynamics.cd.mapper.DepartmentMapper;
+import com.griddynamics.cd.mapper.EmployeeMapper;
+import com.griddynamics.cd.repository.CarRepository;
+import com.griddynamics.cd.repository.DepartmentRepository;
+import com.griddynamics.cd.repository.EmployeeRepository;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.HashMap;
+
+/**
+ * Delta sync: rows changed since a client's token in (updated_at, id) order plus ids deleted since then, so the
+ * cost of a sync follows the number of changes rather than the size of the table.
+ * <p>
+ * Both streams are read in the order of the writing transaction's id, and only below the oldest transaction still
+ * running. A write that commits late therefore holds back the streams until it is visible, rather than being passed
+ * by a client that synced in the meantime, however long its transaction takes.
+ */
+@Service
+@AllArgsConstructor
+public class SyncService {
+
+    private final CarRepository carRepository;
+    private final EmployeeRepository employeeRepository;
+    private final DepartmentRepository departmentRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final CarMapper carMapper;
+    private final EmployeeMapper employeeMapper;
+    private final DepartmentMapper departmentMapper;
+
+    /**
+     * Refused with {@link SyncNotSupportedException} on a database without the change tracking triggers, such as
+     * the H2 database of the dev profile, where updates would never reach the client.
+     */
+    public ResponseEntity<?> getChanges(String entity, String since, int pageSize) {
+        if (!tombstoneRepository.isChangeTrackingInstalled()) {
+            throw new SyncNotSupportedException();
+        }
+        SyncToken token = SyncToken.decode(since);
+        return switch (entity) {
+            case "cars" -> changes(entity, TombstoneEntity.CAR, token, pageSize,
+                    carRepository.findAllChangedAfter(token.rowCursor(), pageSize).map(carMapper::toCarModel));
+            case "employees" -> changes(entity, TombstoneEntity.EMPLOYEE, token, pageSize,
+                    employeeRepository.findAllChangedAfter(token.rowCursor(), pageSize).map(employeeMapper::toEmployeeModel));
+            case "departments" -> changes(entity, TombstoneEntity.DEPARTMENT, token, pageSize,
+                    departmentRepository.findAllChangedAfter(token.rowCursor(), pageSize).map(departmentMapper::toDepartmentModel));
+            default -> throw new EntityNotFoundException("Sync of " + entity + " is not supported");
+        };
+    }
+
+    /**
+     * {@code hasMore} is set when either stream filled the page, so a client that keeps going while it is set
+     * may end with one empty page.
+     */
+    private ResponseEntity<?> changes(String key, String entityType, SyncToken token, int pageSize, KeysetSlice<?> changed) {
+        KeysetSlice<TombstoneEntity> tombstones = tombstoneRepository.findAllDeletedAfter(
+                entityType, token.tombstoneCursor(), pageSize);
+
+        HashMap<String, Object> values = new HashMap<>();
+        values.put(key, changed.content());
+        values.put("deletedIds", tombstones.content().stream()
+                .map(TombstoneEntity::getEntityId)
+                .toList());
+        values.put("nextToken", new SyncToken(changed.nextCursor(), tombstones.nextCursor()).encode());
+        values.put("hasMore", changed.content().size() == pageSize || tombstones.content().size() == pageSize);
+
+        return new ResponseEntity<>(values, HttpStatus.OK);
+    }
+}
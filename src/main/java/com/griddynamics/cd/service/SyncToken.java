@@ -0,0 +1,38 @@
+package com.griddynamics.cd.service;
+
+import com.griddynamics.cd.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a sync client in both change streams of an entity: the keyset cursors of the last changed row and
+ * of the last tombstone read. Travels to clients as an opaque url-safe string.
+ */
+record SyncToken(String rowCursor, String tombstoneCursor) {
+
+    static final SyncToken START = new SyncToken(null, null);
+
+    private static final String SEPARATOR = ",";
+
+    String encode() {
+        String raw = (tombstoneCursor == null ? "" : tombstoneCursor) + SEPARATOR + (rowCursor == null ? "" : rowCursor);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static SyncToken decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return START;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 2);
+            if (parts.length != 2) {
+                throw new InvalidCursorException(token);
+            }
+            return new SyncToken(parts[1].isEmpty() ? null : parts[1], parts[0].isEmpty() ? null : parts[0]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
@@ -74,7 +74,7 @@ public class CarControllerTest extends BaseIntegrationTest {
                     .id(4L)
                     .manufacturer("Toyota")
                     .model("Mark 2")
-                    .vinNumber("4T3ZK3BB7BU042861")
+                    .vinNumber("JT2AE92E8H3012345")
                     .color(Color.BLACK)
                     .employeeId(2L)
                     .build()
@@ -125,7 +125,7 @@ public class CarControllerTest extends BaseIntegrationTest {
         CarEntity carEntity4 = CarEntity.builder()
                 .manufacturer("Toyota")
                 .model("Mark 2")
-                .vinNumber("4T3ZK3BB7BU042861")
+                .vinNumber("JT2AE92E8H3012345")
                 .color(Color.BLACK)
                 .employee(employeeEntity2)
                 .build();
@@ -222,6 +222,22 @@ public class CarControllerTest extends BaseIntegrationTest {
                 Objects.requireNonNull(result.getResolvedException()).getMessage());
     }
 
+    @Test
+    void saveCar_whenPassCreateCarRequestWithExistingVinNumber_thenThrowEntityExistsException() throws Exception {
+        CreateCarRequest createCarRequest = CreateCarRequest.builder()
+                .vinNumber("1HGCG2254WA015540")
+                .color(Color.WHITE)
+                .build();
+
+        MvcResult result = mockMvc.perform(post("/cars")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createCarRequest)))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        assertEquals("Car with 1HGCG2254WA015540 vin number already exist",
+                objectMapper.readTree(result.getResponse().getContentAsString()).get("message").asText());
+    }
+
     @Test
     void updateCar_whenPassValidUpdateCarRequest_thenReturnValidModel() throws Exception {
         UpdateCarRequest updateCarRequest = UpdateCarRequest.builder()
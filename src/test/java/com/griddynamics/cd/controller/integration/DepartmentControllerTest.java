@@ -181,7 +181,7 @@ public class DepartmentControllerTest extends BaseIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andReturn();
         assertEquals("Department with test1@test email already exist",
-                Objects.requireNonNull(result.getResolvedException()).getMessage());
+                objectMapper.readTree(result.getResponse().getContentAsString()).get("message").asText());
     }
 
     @Test
@@ -235,7 +235,7 @@ public class DepartmentControllerTest extends BaseIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andReturn();
         assertEquals("Department with test1@test email already exist",
-                Objects.requireNonNull(result.getResolvedException()).getMessage());
+                objectMapper.readTree(result.getResponse().getContentAsString()).get("message").asText());
     }
 
     @Test
@@ -234,7 +234,7 @@ public class EmployeeControllerTest extends BaseIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andReturn();
         assertEquals("Employee with 7630894488 phone number already exist",
-                Objects.requireNonNull(result.getResolvedException()).getMessage());
+                objectMapper.readTree(result.getResponse().getContentAsString()).get("message").asText());
     }
 
     @Test
@@ -306,7 +306,7 @@ public class EmployeeControllerTest extends BaseIntegrationTest {
                 .andExpect(status().isBadRequest())
                 .andReturn();
         assertEquals("Employee with 7630894488 phone number already exist",
-                Objects.requireNonNull(result.getResolvedException()).getMessage());
+                objectMapper.readTree(result.getResponse().getContentAsString()).get("message").asText());
     }
 
     @Test
@@ -2,28 +2,47 @@ package com.griddynamics.cd.controller.unit;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.griddynamics.cd.controller.CarController;
+import com.griddynamics.cd.exception.EmptyFilterException;
+import com.griddynamics.cd.exception.ExceptionAdviser;
+import com.griddynamics.cd.model.BatchGetRequest;
 import com.griddynamics.cd.model.Car;
 import com.griddynamics.cd.model.Color;
+import com.griddynamics.cd.model.CountMode;
+import com.griddynamics.cd.model.ExportFormat;
+import com.griddynamics.cd.model.create.BulkCreateRequest;
 import com.griddynamics.cd.model.create.CreateCarRequest;
+import com.griddynamics.cd.model.filter.CarFilter;
+import com.griddynamics.cd.model.update.BulkUpdateItem;
+import com.griddynamics.cd.model.update.BulkUpdateRequest;
 import com.griddynamics.cd.model.update.UpdateCarRequest;
 import com.griddynamics.cd.service.CarService;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortHandlerMethodArgumentResolver;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class CarControllerTest {
 
     private final CarService carService = mock(CarService.class);
-    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new CarController(carService)).build();
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new CarController(carService))
+            .setCustomArgumentResolvers(new SortHandlerMethodArgumentResolver())
+            .build();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Test
@@ -36,6 +55,16 @@ class CarControllerTest {
                 .andExpect(jsonPath("$", notNullValue()));
     }
 
+    @Test
+    void searchCars_whenPassSearchText_thenReturnOk() throws Exception {
+        doReturn(new ResponseEntity<>(Map.of("cars", List.of()), HttpStatus.OK))
+                .when(carService).searchCars("Toyta", null, 3);
+
+        mockMvc.perform(get("/cars/search").param("q", "Toyta"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cars", notNullValue()));
+    }
+
     @Test
     void getCarById_whenPassValidId_thenReturnOk() throws Exception {
         when(carService.getCarById(1L))
@@ -56,6 +85,144 @@ class CarControllerTest {
                 .andExpect(jsonPath("$", notNullValue()));
     }
 
+    @Test
+    void getAllCars_whenPassDepartmentIds_thenBindDepartmentFilter() throws Exception {
+        CarFilter filter = CarFilter.builder().departmentIds(List.of(4L, 5L)).build();
+        doReturn(new ResponseEntity<>(Map.of("cars", List.of()), HttpStatus.OK))
+                .when(carService).getCarsWithFiltering(filter, null, 0, 3, "id", Sort.Direction.ASC, Sort.unsorted(), null, CountMode.EXACT);
+
+        mockMvc.perform(get("/cars").param("departmentIds", "4", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cars", notNullValue()));
+    }
+
+    @Test
+    void countCars_whenHeadRequest_thenReturnTotalCountHeader() throws Exception {
+        CarFilter filter = CarFilter.builder().colors(List.of(Color.RED)).build();
+        doReturn(ResponseEntity.ok().header("X-Total-Count", "12").body(Map.of("totalObjects", 12L)))
+                .when(carService).countCars(filter, false);
+
+        mockMvc.perform(head("/cars/count").param("colors", "RED"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "12"));
+    }
+
+    @Test
+    void getCarsByIds_whenPassIds_thenReturnOk() throws Exception {
+        doReturn(new ResponseEntity<>(Map.of("cars", List.of(), "notFoundIds", List.of(7L)), HttpStatus.OK))
+                .when(carService).getCarsByIds(List.of(7L));
+
+        mockMvc.perform(post("/cars/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchGetRequest(List.of(7L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.notFoundIds", notNullValue()));
+    }
+
+    @Test
+    void getCarsByIds_whenPassTooManyIds_thenReturnBadRequest() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1, BatchGetRequest.MAX_IDS + 1).boxed().toList();
+
+        mockMvc.perform(post("/cars/batch-get")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchGetRequest(ids))))
+                .andExpect(status().isBadRequest());
+        verify(carService, never()).getCarsByIds(any());
+    }
+
+    @Test
+    void saveCars_whenItemInvalid_thenReturnBadRequest() throws Exception {
+        CreateCarRequest invalid = CreateCarRequest.builder().vinNumber("short").build();
+
+        mockMvc.perform(post("/cars/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkCreateRequest<>(List.of(invalid)))))
+                .andExpect(status().isBadRequest());
+        verify(carService, never()).saveCars(any());
+    }
+
+    @Test
+    void updateCars_whenPassItemsAndFilter_thenReturnBadRequest() throws Exception {
+        BulkUpdateRequest<CarFilter, UpdateCarRequest> request = BulkUpdateRequest.<CarFilter, UpdateCarRequest>builder()
+                .items(List.of(new BulkUpdateItem<>(1L, UpdateCarRequest.builder().color(Color.RED).build())))
+                .filter(new CarFilter())
+                .build();
+
+        mockMvc.perform(patch("/cars/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verify(carService, never()).updateCars(any());
+    }
+
+    @Test
+    void updateCars_whenFilterHasEmptyList_thenReturnBadRequest() throws Exception {
+        BulkUpdateRequest<CarFilter, UpdateCarRequest> request = BulkUpdateRequest.<CarFilter, UpdateCarRequest>builder()
+                .filter(CarFilter.builder().excludeColors(List.of()).build())
+                .changes(UpdateCarRequest.builder().color(Color.RED).build())
+                .build();
+
+        mockMvc.perform(patch("/cars/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verify(carService, never()).updateCars(any());
+    }
+
+    @Test
+    void updateCars_whenFilterIsEmpty_thenReturnBadRequest() throws Exception {
+        MockMvc adviserMockMvc = MockMvcBuilders.standaloneSetup(new CarController(carService))
+                .setControllerAdvice(new ExceptionAdviser())
+                .build();
+        when(carService.updateCars(any())).thenThrow(new EmptyFilterException());
+        BulkUpdateRequest<CarFilter, UpdateCarRequest> request = BulkUpdateRequest.<CarFilter, UpdateCarRequest>builder()
+                .filter(new CarFilter())
+                .changes(UpdateCarRequest.builder().color(Color.RED).build())
+                .build();
+
+        adviserMockMvc.perform(patch("/cars/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Filter must restrict at least one field"));
+    }
+
+    @Test
+    void upsertCarByVin_whenCarCreated_thenReturnCreated() throws Exception {
+        CreateCarRequest createCarRequest = CreateCarRequest.builder()
+                .manufacturer("Audi")
+                .model("A5")
+                .color(Color.WHITE)
+                .build();
+
+        when(carService.upsertCarByVin(eq("JH4KA7530MC011312"), any(CreateCarRequest.class)))
+                .thenReturn(new ResponseEntity<>(new Car(), HttpStatus.CREATED));
+
+        mockMvc.perform(put("/cars/by-vin/JH4KA7530MC011312")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createCarRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", notNullValue()));
+    }
+
+    @Test
+    void upsertCarByVin_whenBodyVinDiffersFromPath_thenReturnBadRequest() throws Exception {
+        MockMvc adviserMockMvc = MockMvcBuilders.standaloneSetup(new CarController(carService))
+                .setControllerAdvice(new ExceptionAdviser())
+                .build();
+        CreateCarRequest createCarRequest = CreateCarRequest.builder()
+                .vinNumber("KNDJE723297570351")
+                .color(Color.WHITE)
+                .build();
+
+        adviserMockMvc.perform(put("/cars/by-vin/JH4KA7530MC011312")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createCarRequest)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Vin number KNDJE723297570351 in the body does not match JH4KA7530MC011312 in the path"));
+        verify(carService, never()).upsertCarByVin(anyString(), any());
+    }
+
     @Test
     void saveCar_whenValidCreateCarRequest_thenReturnOk() throws Exception {
         CreateCarRequest createCarRequest = CreateCarRequest.builder()
@@ -158,4 +325,38 @@ class CarControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").doesNotExist());
     }
+
+    @Test
+    void getCarFacets_whenPassExcludedColors_thenBindExcludeFilter() throws Exception {
+        CarFilter filter = CarFilter.builder().excludeColors(List.of(Color.RED, Color.BLACK)).build();
+        doReturn(new ResponseEntity<>(Map.of("facets", Map.of()), HttpStatus.OK))
+                .when(carService).getCarFacets(filter);
+
+        mockMvc.perform(get("/cars/facets").param("excludeColors", "RED", "BLACK"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.facets", notNullValue()));
+    }
+
+    @Test
+    void exportCars_whenPassExcludedManufacturers_thenBindExcludeFilter() throws Exception {
+        CarFilter filter = CarFilter.builder().excludeManufacturers(List.of("Lada")).build();
+        doReturn(ResponseEntity.ok().body((StreamingResponseBody) outputStream -> {
+        })).when(carService).exportCars(filter, ExportFormat.CSV);
+
+        mockMvc.perform(get("/cars/export").param("excludeManufacturers", "Lada").param("format", "CSV"))
+                .andExpect(status().isOk());
+        verify(carService, times(1)).exportCars(filter, ExportFormat.CSV);
+    }
+
+    @Test
+    void getCarFacets_whenPassEmptyExcludedColors_thenReturnBadRequest() throws Exception {
+        MockMvc adviserMockMvc = MockMvcBuilders.standaloneSetup(new CarController(carService))
+                .setControllerAdvice(new ExceptionAdviser())
+                .build();
+
+        adviserMockMvc.perform(get("/cars/facets").param("excludeColors", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(" Excluded color list should be null or not empty"));
+        verify(carService, never()).getCarFacets(any());
+    }
 }
@@ -8,6 +8,7 @@ import com.griddynamics.cd.model.create.CreateDepartmentRequest;
 import com.griddynamics.cd.model.update.UpdateDepartmentRequest;
 import com.griddynamics.cd.service.DepartmentService;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.web.SortHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -24,7 +25,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class DepartmentControllerTest {
 
     private final DepartmentService departmentService = mock(DepartmentService.class);
-    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new DepartmentController(departmentService)).build();
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new DepartmentController(departmentService))
+            .setCustomArgumentResolvers(new SortHandlerMethodArgumentResolver())
+            .build();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Test
@@ -39,7 +42,7 @@ public class DepartmentControllerTest {
 
     @Test
     void getDepartmentById_whenPassValidId_thenReturnOk() throws Exception {
-        when(departmentService.getDepartmentById(1L))
+        when(departmentService.getDepartmentById(1L, null))
                 .thenReturn(new Department());
 
         mockMvc.perform(get("/departments/1"))
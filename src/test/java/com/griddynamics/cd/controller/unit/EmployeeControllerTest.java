@@ -3,17 +3,27 @@ package com.griddynamics.cd.controller.unit;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.griddynamics.cd.controller.EmployeeController;
+import com.griddynamics.cd.model.BatchDeleteRequest;
+import com.griddynamics.cd.model.CountMode;
+import com.griddynamics.cd.model.ExportFormat;
 import com.griddynamics.cd.model.Employee;
 import com.griddynamics.cd.model.create.CreateEmployeeRequest;
+import com.griddynamics.cd.model.filter.EmployeeFilter;
 import com.griddynamics.cd.model.update.UpdateEmployeeRequest;
 import com.griddynamics.cd.service.EmployeeService;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.SortHandlerMethodArgumentResolver;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Mockito.*;
@@ -24,7 +34,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class EmployeeControllerTest {
 
     private final EmployeeService employeeService = mock(EmployeeService.class);
-    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new EmployeeController(employeeService)).build();
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new EmployeeController(employeeService))
+            .setCustomArgumentResolvers(new SortHandlerMethodArgumentResolver())
+            .build();
     private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
     @Test
@@ -37,9 +49,50 @@ public class EmployeeControllerTest {
                 .andExpect(jsonPath("$", notNullValue()));
     }
 
+    @Test
+    void getAllEmployees_whenPassRanges_thenBindRangeFilter() throws Exception {
+        EmployeeFilter filter = EmployeeFilter.builder()
+                .birthdayFrom(LocalDate.of(1980, 1, 1))
+                .birthdayTo(LocalDate.of(1989, 12, 31))
+                .idFrom(10L)
+                .build();
+        doReturn(new ResponseEntity<>(Map.of("employees", List.of()), HttpStatus.OK))
+                .when(employeeService).getAllEmployees(filter, null, 0, 3, "id", Sort.Direction.ASC, Sort.unsorted(), null, CountMode.EXACT);
+
+        mockMvc.perform(get("/employees")
+                        .param("birthdayFrom", "1980-01-01")
+                        .param("birthdayTo", "1989-12-31")
+                        .param("idFrom", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees", notNullValue()));
+    }
+
+    @Test
+    void getAllEmployees_whenRepeatSort_thenBindEverySortColumnInOrder() throws Exception {
+        Sort sort = Sort.by(Sort.Order.asc("last_name"), Sort.Order.desc("first_name"));
+        doReturn(new ResponseEntity<>(Map.of("employees", List.of()), HttpStatus.OK))
+                .when(employeeService).getAllEmployees(new EmployeeFilter(), null, 0, 3, "id", Sort.Direction.ASC, sort, null, CountMode.EXACT);
+
+        mockMvc.perform(get("/employees")
+                        .param("sort", "last_name,asc")
+                        .param("sort", "first_name,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees", notNullValue()));
+    }
+
+    @Test
+    void searchEmployees_whenPassSearchText_thenReturnOk() throws Exception {
+        doReturn(new ResponseEntity<>(Map.of("employees", List.of()), HttpStatus.OK))
+                .when(employeeService).searchEmployees("Jon", null, 3);
+
+        mockMvc.perform(get("/employees/search").param("q", "Jon"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employees", notNullValue()));
+    }
+
     @Test
     void getEmployeeById_whenPassValidId_thenReturnOk() throws Exception {
-        when(employeeService.getEmployeeById(12L))
+        when(employeeService.getEmployeeById(12L, null))
                 .thenReturn(new Employee());
 
         mockMvc.perform(get("/employees/12"))
@@ -181,4 +234,29 @@ public class EmployeeControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").doesNotExist());
     }
+
+    @Test
+    void deleteEmployeesByIds_whenPassNoIds_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(delete("/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchDeleteRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+        verify(employeeService, never()).deleteEmployees(any());
+    }
+
+    @Test
+    void exportEmployees_whenPassExcludedBirthdays_thenBindExcludeFilter() throws Exception {
+        EmployeeFilter filter = EmployeeFilter.builder()
+                .excludeBirthdays(List.of(LocalDate.of(1990, 5, 17)))
+                .excludeDepartmentIds(List.of(3L))
+                .build();
+        doReturn(ResponseEntity.ok().body((StreamingResponseBody) outputStream -> {
+        })).when(employeeService).exportEmployees(filter, ExportFormat.NDJSON);
+
+        mockMvc.perform(get("/employees/export")
+                        .param("excludeBirthdays", "1990-05-17")
+                        .param("excludeDepartmentIds", "3"))
+                .andExpect(status().isOk());
+        verify(employeeService, times(1)).exportEmployees(filter, ExportFormat.NDJSON);
+    }
 }
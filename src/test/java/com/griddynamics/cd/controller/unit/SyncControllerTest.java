@@ -0,0 +1,58 @@
+package com.griddynamics.cd.controller.unit;
+
+import com.griddynamics.cd.controller.SyncController;
+import com.griddynamics.cd.exception.ExceptionAdviser;
+import com.griddynamics.cd.exception.SyncNotSupportedException;
+import com.griddynamics.cd.service.SyncService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SyncControllerTest {
+
+    private final SyncService syncService = mock(SyncService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new SyncController(syncService)).build();
+
+    @Test
+    void getChanges_whenPassToken_thenPassItWithDefaultPageSize() throws Exception {
+        doReturn(ResponseEntity.ok(Map.of("nextToken", "next")))
+                .when(syncService).getChanges("cars", "token", 100);
+
+        mockMvc.perform(get("/sync/cars").param("since", "token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextToken").value("next"));
+
+        verify(syncService, times(1)).getChanges("cars", "token", 100);
+    }
+
+    @Test
+    void getChanges_whenOmitToken_thenRequestFullSync() throws Exception {
+        doReturn(ResponseEntity.ok(Map.of()))
+                .when(syncService).getChanges("employees", null, 50);
+
+        mockMvc.perform(get("/sync/employees").param("pageSize", "50"))
+                .andExpect(status().isOk());
+
+        verify(syncService, times(1)).getChanges("employees", null, 50);
+    }
+
+    @Test
+    void getChanges_whenSyncNotSupported_thenReturnNotImplemented() throws Exception {
+        MockMvc adviserMockMvc = MockMvcBuilders.standaloneSetup(new SyncController(syncService))
+                .setControllerAdvice(new ExceptionAdviser())
+                .build();
+        when(syncService.getChanges("cars", null, 100)).thenThrow(new SyncNotSupportedException());
+
+        adviserMockMvc.perform(get("/sync/cars"))
+                .andExpect(status().isNotImplemented())
+                .andExpect(jsonPath("$.message").value("Sync needs the change tracking triggers, which are only installed on PostgreSQL"));
+    }
+}
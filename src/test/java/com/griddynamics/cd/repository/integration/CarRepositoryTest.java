@@ -0,0 +1,465 @@
+package com.griddynamics.cd.repository.integration;
+
+import com.griddynamics.cd.BaseIntegrationTest;
+import com.griddynamics.cd.entity.CarEntity;
+import com.griddynamics.cd.exception.EmptyFilterException;
+import com.griddynamics.cd.model.Color;
+import com.griddynamics.cd.model.MatchMode;
+import com.griddynamics.cd.model.filter.CarFilter;
+import com.griddynamics.cd.repository.CarRepository;
+import com.griddynamics.cd.repository.query.FacetCount;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import com.griddynamics.cd.repository.query.Upserted;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CarRepositoryTest extends BaseIntegrationTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Statement st = connection.createStatement();
+
+        st.execute("""
+                INSERT INTO car (manufacturer, model, vin_number, color)
+                SELECT 'Toyota', 'Model ' || (n % 100), LPAD(n::TEXT, 17, '0'), 'BLACK'
+                FROM generate_series(1, 20000) AS n
+                """);
+        st.execute("ANALYZE car");
+        st.close();
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        Statement st = connection.createStatement();
+
+        st.execute("TRUNCATE TABLE car, employee, department RESTART IDENTITY;");
+        st.close();
+    }
+
+    @Test
+    void explainByFilter_whenFilterBySelectiveColumn_thenUseIndex() {
+        String plan = String.join("\n", carRepository.explainByFilter(CarFilter.builder()
+                .vinNumbers(List.of("00000000000000042"))
+                .build()));
+
+        assertTrue(plan.contains("Index"), plan);
+        assertFalse(plan.contains("IS NULL"), plan);
+        assertFalse(plan.contains("manufacturer"), plan);
+    }
+
+    @Test
+    void explainByFilter_whenCombineFilters_thenRenderOnlyPresentPredicates() {
+        String plan = String.join("\n", carRepository.explainByFilter(CarFilter.builder()
+                .models(List.of("Model 1"))
+                .colors(List.of(Color.BLACK))
+                .build()));
+
+        assertTrue(plan.contains("model"), plan);
+        assertTrue(plan.contains("color"), plan);
+        assertFalse(plan.contains("vin_number"), plan);
+        assertFalse(plan.contains("IS NULL"), plan);
+    }
+
+    @Test
+    void explainByFilter_whenNoFilters_thenPlanHasNoFilterStep() {
+        String plan = String.join("\n", carRepository.explainByFilter(new CarFilter()));
+
+        assertFalse(plan.contains("Filter"), plan);
+    }
+
+    @Test
+    void findAllByFilter_whenFilterByDepartment_thenReturnCarsOfItsEmployeesOnce() throws SQLException {
+        Statement st = connection.createStatement();
+        st.execute("INSERT INTO department (name, email, department_type) VALUES ('Sales', 'sales@mail.com', 'SALE'), ('Support', 'support@mail.com', 'SUPPORT')");
+        st.execute("INSERT INTO employee (first_name, last_name, department_id) VALUES ('Joe', 'Doe', 1), ('Jane', 'Doe', 1), ('Jim', 'Roe', 2)");
+        st.execute("UPDATE car SET employee_id = 1 + id % 3 WHERE id <= 9");
+        st.close();
+
+        Page<CarEntity> page = carRepository.findAllByFilter(CarFilter.builder()
+                .departmentIds(List.of(1L))
+                .build(), PageRequest.of(0, 10, Sort.by("id")));
+
+        assertEquals(List.of(1L, 3L, 4L, 6L, 7L, 9L), page.getContent().stream().map(CarEntity::getId).toList());
+        assertEquals(6, page.getTotalElements());
+    }
+
+    @Test
+    void findAllByFilter_whenSortByOwnerLastName_thenOrderByJoinedColumnWithOwnerlessCarsLast() throws SQLException {
+        seedOwners();
+
+        Page<CarEntity> page = carRepository.findAllByFilter(CarFilter.builder().idTo(12L).build(),
+                PageRequest.of(0, 12, Sort.by("employee.last_name")));
+
+        assertEquals(List.of(1L, 4L, 7L, 2L, 5L, 8L, 3L, 6L, 9L, 10L, 11L, 12L),
+                page.getContent().stream().map(CarEntity::getId).toList());
+        assertEquals(12, page.getTotalElements());
+    }
+
+    @Test
+    void findAllByFilterAfterCursor_whenSortByOwnerLastName_thenSeekThroughJoinedColumn() throws SQLException {
+        seedOwners();
+        CarFilter filter = CarFilter.builder().idTo(12L).build();
+        List<Long> ids = new ArrayList<>();
+
+        String cursor = "";
+        do {
+            KeysetSlice<CarEntity> slice = carRepository.findAllByFilterAfterCursor(filter, "employee.last_name", Sort.Direction.ASC, cursor, 5);
+            slice.content().forEach(car -> ids.add(car.getId()));
+            cursor = slice.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(1L, 4L, 7L, 2L, 5L, 8L, 3L, 6L, 9L, 10L, 11L, 12L), ids);
+    }
+
+    @Test
+    void findAllByFilterAfterCursor_whenSortByOwnerLastNameDescending_thenKeepOwnerlessCarsLast() throws SQLException {
+        seedOwners();
+        CarFilter filter = CarFilter.builder().idTo(12L).build();
+        List<Long> ids = new ArrayList<>();
+
+        String cursor = "";
+        do {
+            KeysetSlice<CarEntity> slice = carRepository.findAllByFilterAfterCursor(filter, "employee.last_name", Sort.Direction.DESC, cursor, 5);
+            slice.content().forEach(car -> ids.add(car.getId()));
+            cursor = slice.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(9L, 6L, 3L, 8L, 5L, 2L, 7L, 4L, 1L, 12L, 11L, 10L), ids);
+    }
+
+    @Test
+    void findAllByFilterAfterCursor_whenPassFieldsAndSortByOwnerLastName_thenReturnSortValueByPath() throws SQLException {
+        seedOwners();
+
+        KeysetSlice<Map<String, Object>> slice = carRepository.findAllByFilterAfterCursor(CarFilter.builder().idTo(12L).build(),
+                List.of("model"), "employee.last_name", Sort.Direction.DESC, "", 2);
+
+        Map<String, Object> first = slice.content().get(0);
+        assertEquals(Set.of("id", "model", "employee.last_name"), first.keySet());
+        assertEquals(9L, first.get("id"));
+        assertEquals("Zed", first.get("employee.last_name"));
+    }
+
+    @Test
+    void findAllByFilter_whenMatchCaseInsensitively_thenIgnoreCase() {
+        Page<CarEntity> page = carRepository.findAllByFilter(CarFilter.builder()
+                .manufacturers(List.of("toyota"))
+                .models(List.of("MODEL 7"))
+                .matchMode(MatchMode.CI)
+                .build(), PageRequest.of(0, 3, Sort.by("id")));
+
+        assertEquals(200, page.getTotalElements());
+    }
+
+    @Test
+    void findAllByFilter_whenMatchByPrefix_thenMatchStartAndEscapeWildcards() {
+        CarFilter prefix = CarFilter.builder().models(List.of("Model 9")).matchMode(MatchMode.PREFIX).build();
+        CarFilter wildcard = CarFilter.builder().models(List.of("Model_9")).matchMode(MatchMode.PREFIX).build();
+
+        assertEquals(2200, carRepository.findAllByFilter(prefix, PageRequest.of(0, 3, Sort.by("id"))).getTotalElements());
+        assertEquals(0, carRepository.findAllByFilter(wildcard, PageRequest.of(0, 3, Sort.by("id"))).getTotalElements());
+    }
+
+    @Test
+    void findAllByFilter_whenExcludeValues_thenKeepRowsWithoutThoseValuesOrWithNull() throws SQLException {
+        seedOwners();
+
+        Page<CarEntity> page = carRepository.findAllByFilter(CarFilter.builder()
+                .idTo(12L)
+                .excludeEmployeeIds(List.of(1L, 2L))
+                .excludeModels(List.of("Model 5"))
+                .build(), PageRequest.of(0, 12, Sort.by("id")));
+
+        assertEquals(List.of(2L, 8L, 10L, 11L, 12L), page.getContent().stream().map(CarEntity::getId).toList());
+    }
+
+    @Test
+    void findAllByFilter_whenExcludeDepartments_thenAntiJoinThroughOwner() throws SQLException {
+        Statement st = connection.createStatement();
+        st.execute("INSERT INTO department (name, email, department_type) VALUES ('Sales', 'sales@mail.com', 'SALE'), ('Support', 'support@mail.com', 'SUPPORT')");
+        st.execute("INSERT INTO employee (first_name, last_name, department_id) VALUES ('Joe', 'Doe', 1), ('Jane', 'Doe', 2), ('Jim', 'Roe', NULL)");
+        st.execute("UPDATE car SET employee_id = 1 + id % 3 WHERE id <= 9");
+        st.close();
+
+        Page<CarEntity> page = carRepository.findAllByFilter(CarFilter.builder()
+                .idTo(12L)
+                .excludeDepartmentIds(List.of(1L))
+                .build(), PageRequest.of(0, 12, Sort.by("id")));
+
+        assertEquals(List.of(1L, 2L, 4L, 5L, 7L, 8L, 10L, 11L, 12L), page.getContent().stream().map(CarEntity::getId).toList());
+    }
+
+    @Test
+    void countByFilter_whenFilterByModel_thenCountMatchingRows() {
+        assertEquals(200, carRepository.countByFilter(CarFilter.builder().models(List.of("Model 1")).build()));
+        assertEquals(20000, carRepository.countByFilter(new CarFilter()));
+    }
+
+    @Test
+    @Transactional
+    void insertAll_whenPassBatch_thenInsertEveryRowWithIdsInArgumentOrder() {
+        List<Long> ids = carRepository.insertAll(List.of(
+                CarEntity.builder().manufacturer("Bulk").model("A").color(Color.RED).build(),
+                CarEntity.builder().manufacturer("Bulk").model("B").vinNumber("BULK0000000000002").color(Color.BLACK).build()));
+
+        assertEquals(2, ids.size());
+        List<CarEntity> cars = carRepository.findAllByIds(ids);
+        assertEquals(List.of("A", "B"), cars.stream().map(CarEntity::getModel).toList());
+        assertEquals(ids, cars.stream().map(CarEntity::getId).toList());
+        assertNull(cars.get(0).getVinNumber());
+        assertEquals(20002, carRepository.count());
+    }
+
+    @Test
+    @Transactional
+    void upsertAllByVinNumber_whenVinExists_thenReplaceRowOtherwiseInsert() {
+        List<Upserted<Long>> upserted = carRepository.upsertAllByVinNumber(List.of(
+                CarEntity.builder().manufacturer("Feed").model("New").vinNumber("FEED0000000000001").color(Color.RED).build(),
+                CarEntity.builder().manufacturer("Feed").model("Replaced").vinNumber("00000000000000001").color(Color.RED).build()));
+
+        assertTrue(upserted.get(0).created());
+        assertFalse(upserted.get(1).created());
+        assertEquals(1L, upserted.get(1).row());
+        assertEquals(20001, carRepository.count());
+        CarEntity replaced = carRepository.findById(1L).orElseThrow();
+        assertEquals("Replaced", replaced.getModel());
+        assertEquals(Color.RED, replaced.getColor());
+    }
+
+    @Test
+    @Transactional
+    void upsertByVinNumber_whenVinExists_thenReturnReplacedRow() {
+        Upserted<CarEntity> upserted = carRepository.upsertByVinNumber(
+                CarEntity.builder().manufacturer("Feed").model("Replaced").vinNumber("00000000000000002").color(Color.WHITE).build());
+
+        assertFalse(upserted.created());
+        assertEquals(2L, upserted.row().getId());
+        assertEquals("Replaced", upserted.row().getModel());
+        assertEquals(Color.WHITE, upserted.row().getColor());
+    }
+
+    @Test
+    @Transactional
+    void updateAll_whenPassRows_thenChangeOnlyNonNullValuesOfExistingRows() {
+        List<Long> updated = carRepository.updateAll(List.of(
+                CarEntity.builder().id(1L).color(Color.RED).build(),
+                CarEntity.builder().id(2L).model("Renamed").build(),
+                CarEntity.builder().id(100000L).color(Color.RED).build()));
+
+        assertEquals(Set.of(1L, 2L), Set.copyOf(updated));
+        CarEntity first = carRepository.findById(1L).orElseThrow();
+        CarEntity second = carRepository.findById(2L).orElseThrow();
+        assertEquals(Color.RED, first.getColor());
+        assertEquals("Model 1", first.getModel());
+        assertEquals(Color.BLACK, second.getColor());
+        assertEquals("Renamed", second.getModel());
+    }
+
+    @Test
+    @Transactional
+    void updateAllByFilter_whenPassChanges_thenUpdateEveryMatchingRow() {
+        int updated = carRepository.updateAllByFilter(CarFilter.builder().models(List.of("Model 1")).build(),
+                CarEntity.builder().color(Color.RED).build());
+
+        assertEquals(200, updated);
+        assertEquals(200, carRepository.countByFilter(CarFilter.builder().colors(List.of(Color.RED)).build()));
+    }
+
+    @Test
+    @Transactional
+    void updateAllByFilter_whenFilterIsEmpty_thenThrowEmptyFilterExceptionAndUpdateNothing() {
+        assertThrows(EmptyFilterException.class, () -> carRepository.updateAllByFilter(new CarFilter(),
+                CarEntity.builder().color(Color.RED).build()));
+
+        assertEquals(0, carRepository.countByFilter(CarFilter.builder().colors(List.of(Color.RED)).build()));
+    }
+
+    @Test
+    void forEachChunkByFilter_whenManyRows_thenVisitEveryRowOnceInBoundedChunks() {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        carRepository.forEachChunkByFilter(CarFilter.builder().models(List.of("Model 1")).build(), 64, chunk -> {
+            chunkSizes.add(chunk.size());
+            chunk.forEach(car -> ids.add(car.getId()));
+        });
+
+        assertEquals(200, ids.size());
+        assertEquals(ids.stream().sorted().distinct().toList(), ids);
+        assertTrue(chunkSizes.stream().allMatch(size -> size <= 64), chunkSizes.toString());
+    }
+
+    @Test
+    void countFacetsByFilter_whenFilterByModel_thenCountEveryFacetInOnePass() {
+        Map<String, List<FacetCount>> facets = carRepository.countFacetsByFilter(CarFilter.builder()
+                .models(List.of("Model 1", "Model 2"))
+                .build());
+
+        assertEquals(List.of(new FacetCount("BLACK", 400)), facets.get("color"));
+        assertEquals(List.of(new FacetCount("Toyota", 400)), facets.get("manufacturer"));
+        assertEquals(List.of(new FacetCount(null, 400)), facets.get("employee_id"));
+    }
+
+    @Test
+    void findAllByFilter_whenPassFields_thenSelectOnlyThoseFieldsAndId() {
+        Page<Map<String, Object>> page = carRepository.findAllByFilter(CarFilter.builder()
+                .vinNumbers(List.of("00000000000000042"))
+                .build(), List.of("vinNumber"), PageRequest.of(0, 3, Sort.by("id")));
+
+        assertEquals(List.of(Map.of("id", 42L, "vinNumber", "00000000000000042")), page.getContent());
+        assertEquals(1, page.getTotalElements());
+    }
+
+    @Test
+    void findAllByFilterAfterCursor_whenPassFields_thenPageThroughProjection() {
+        CarFilter filter = CarFilter.builder().models(List.of("Model 1")).build();
+
+        KeysetSlice<Map<String, Object>> first = carRepository.findAllByFilterAfterCursor(filter, List.of("model"), "vin_number", Sort.Direction.ASC, "", 150);
+        KeysetSlice<Map<String, Object>> second = carRepository.findAllByFilterAfterCursor(filter, List.of("model"), "vin_number", Sort.Direction.ASC, first.nextCursor(), 150);
+
+        assertEquals(150, first.content().size());
+        assertEquals(50, second.content().size());
+        assertNull(second.nextCursor());
+        assertEquals(Set.of("id", "model", "vinNumber"), first.content().get(0).keySet());
+    }
+
+    @Test
+    void findAllByIds_whenPassIds_thenReadMatchingRowsInOneQuery() {
+        List<Long> ids = carRepository.findAllByIds(List.of(42L, 7L, 100000L)).stream()
+                .map(CarEntity::getId)
+                .toList();
+
+        assertEquals(List.of(7L, 42L), ids);
+    }
+
+    @Test
+    void findAllChangedAfter_whenRowUpdatedAfterSync_thenReturnOnlyThatRow() throws SQLException {
+        String cursor = null;
+        int synced = 0;
+        KeysetSlice<CarEntity> page;
+        do {
+            page = carRepository.findAllChangedAfter(cursor, 5000);
+            synced += page.content().size();
+            cursor = page.nextCursor();
+        } while (!page.content().isEmpty());
+        assertEquals(20000, synced);
+
+        Statement st = connection.createStatement();
+        st.execute("UPDATE car SET color = 'RED' WHERE id = 42");
+        st.close();
+
+        KeysetSlice<CarEntity> changes = carRepository.findAllChangedAfter(cursor, 5000);
+        assertEquals(List.of(42L), changes.content().stream().map(CarEntity::getId).toList());
+        assertTrue(carRepository.findAllChangedAfter(changes.nextCursor(), 5000).content().isEmpty());
+    }
+
+    @Test
+    void findAllChangedAfter_whenStatementSetsStamps_thenKeepDatabaseStamps() throws SQLException {
+        Statement st = connection.createStatement();
+        st.execute("UPDATE car SET updated_at = TIMESTAMP '2000-01-01 00:00:00', write_txid = 0 WHERE id = 42");
+        ResultSet stamps = st.executeQuery("SELECT updated_at > TIMESTAMP '2000-01-01 00:00:00', write_txid > 0 FROM car WHERE id = 42");
+        assertTrue(stamps.next());
+        assertTrue(stamps.getBoolean(1));
+        assertTrue(stamps.getBoolean(2));
+        st.close();
+    }
+
+    @Test
+    void findAllChangedAfter_whenWriterStillOpen_thenStopBeforeItsRows() throws SQLException {
+        String cursor = null;
+        KeysetSlice<CarEntity> page;
+        do {
+            page = carRepository.findAllChangedAfter(cursor, 5000);
+            cursor = page.nextCursor();
+        } while (!page.content().isEmpty());
+
+        try (Connection writer = DriverManager.getConnection(container.getJdbcUrl(), container.getUsername(), container.getPassword())) {
+            writer.setAutoCommit(false);
+            Statement open = writer.createStatement();
+            open.execute("UPDATE car SET color = 'RED' WHERE id = 42");
+
+            Statement st = connection.createStatement();
+            st.execute("UPDATE car SET color = 'RED' WHERE id = 7");
+            st.close();
+
+            KeysetSlice<CarEntity> held = carRepository.findAllChangedAfter(cursor, 5000);
+            assertTrue(held.content().isEmpty());
+            assertEquals(cursor, held.nextCursor());
+
+            writer.commit();
+            open.close();
+        }
+
+        KeysetSlice<CarEntity> changes = carRepository.findAllChangedAfter(cursor, 5000);
+        assertEquals(List.of(42L, 7L), changes.content().stream().map(CarEntity::getId).toList());
+    }
+
+    private void seedOwners() throws SQLException {
+        Statement st = connection.createStatement();
+        st.execute("INSERT INTO employee (first_name, last_name) VALUES ('Amy', 'Zed'), ('Bob', 'Adams'), ('Cid', 'Moore')");
+        st.execute("UPDATE car SET employee_id = 1 + id % 3 WHERE id <= 9");
+        st.close();
+    }
+
+    @Test
+    void findAllBySimilarity_whenTextHasCloseAndExactMatches_thenRankExactMatchesFirst() throws SQLException {
+        seedSearchableCars();
+
+        KeysetSlice<CarEntity> slice = carRepository.findAllBySimilarity("Corolla", null, 10);
+
+        assertEquals(List.of(20003L, 20002L, 20001L), slice.content().stream().map(CarEntity::getId).toList());
+        assertNull(slice.nextCursor());
+    }
+
+    @Test
+    void findAllBySimilarity_whenFollowCursor_thenContinueAfterLastRankedRow() throws SQLException {
+        seedSearchableCars();
+
+        KeysetSlice<CarEntity> first = carRepository.findAllBySimilarity("Corolla", null, 2);
+        KeysetSlice<CarEntity> second = carRepository.findAllBySimilarity("Corolla", first.nextCursor(), 2);
+
+        assertEquals(List.of(20003L, 20002L), first.content().stream().map(CarEntity::getId).toList());
+        assertEquals(List.of(20001L), second.content().stream().map(CarEntity::getId).toList());
+        assertNull(second.nextCursor());
+    }
+
+    /**
+     * One misspelled and two exact Corollas after the seeded rows, none of which resemble the search text.
+     */
+    private void seedSearchableCars() throws SQLException {
+        Statement st = connection.createStatement();
+        st.execute("""
+                INSERT INTO car (manufacturer, model, vin_number, color)
+                VALUES ('Toyota', 'Corola', 'JT2AE92E8H3000001', 'WHITE'),
+                       ('Toyota', 'Corolla', 'JT2AE92E8H3000002', 'WHITE'),
+                       ('Toyota', 'Corolla', 'JT2AE92E8H3000003', 'RED'),
+                       ('Tesla', 'Cybertruck', '5YJ3E1EA7KF000004', 'GREY')
+                """);
+        st.close();
+    }
+}
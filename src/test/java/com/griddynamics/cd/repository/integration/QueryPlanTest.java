@@ -0,0 +1,200 @@
+package com.griddynamics.cd.repository.integration;
+
+import com.griddynamics.cd.BaseIntegrationTest;
+import com.griddynamics.cd.model.MatchMode;
+import com.griddynamics.cd.model.filter.CarFilter;
+import com.griddynamics.cd.model.filter.DepartmentFilter;
+import com.griddynamics.cd.model.filter.EmployeeFilter;
+import com.griddynamics.cd.repository.CarRepository;
+import com.griddynamics.cd.repository.DepartmentRepository;
+import com.griddynamics.cd.repository.EmployeeRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plan regression suite: seeds a realistic volume and fails when a key query falls back to a sequential scan.
+ */
+public class QueryPlanTest extends BaseIntegrationTest {
+
+    @Autowired
+    private CarRepository carRepository;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @BeforeAll
+    static void seed() throws SQLException {
+        Statement st = connection.createStatement();
+
+        st.execute("""
+                INSERT INTO department (name, email, description, department_type)
+                SELECT 'Department ' || n, 'department' || n || '@mail.com', 'Description', 'SALE'
+                FROM generate_series(1, 10000) AS n
+                """);
+        st.execute("""
+                INSERT INTO employee (first_name, last_name, birthday, address, phone_number, department_id)
+                SELECT 'First' || (n % 5000), 'Last' || (n % 7000), DATE '1960-01-01' + (n % 15000),
+                       'Address ' || n, LPAD(n::TEXT, 10, '0'), 1 + n % 10000
+                FROM generate_series(1, 100000) AS n
+                """);
+        st.execute("""
+                INSERT INTO car (manufacturer, model, vin_number, employee_id, color)
+                SELECT 'Manufacturer' || (n % 300), 'Model' || (n % 3000), LPAD(n::TEXT, 17, '0'),
+                       1 + n % 100000, 'BLACK'
+                FROM generate_series(1, 300000) AS n
+                """);
+        st.execute("ANALYZE department, employee, car");
+        st.close();
+    }
+
+    @AfterAll
+    static void cleanUp() throws SQLException {
+        Statement st = connection.createStatement();
+
+        st.execute("TRUNCATE TABLE car, employee, department RESTART IDENTITY;");
+        st.close();
+    }
+
+    @Test
+    void findAllCarsByEmployeeId_whenSeeded_thenUseIndex() throws SQLException {
+        assertNoSeqScan(explain("SELECT * FROM car WHERE employee_id = 42"));
+    }
+
+    @Test
+    void findAllEmployeesByDepartmentId_whenSeeded_thenUseIndex() throws SQLException {
+        assertNoSeqScan(explain("SELECT * FROM employee WHERE department_id = 42"));
+    }
+
+    @Test
+    void existsByPhoneNumber_whenSeeded_thenUseIndex() throws SQLException {
+        assertNoSeqScan(explain("SELECT id FROM employee WHERE phone_number = '0000000042' LIMIT 1"));
+    }
+
+    @Test
+    void existsByEmail_whenSeeded_thenUseIndex() throws SQLException {
+        assertNoSeqScan(explain("SELECT id FROM department WHERE email = 'department42@mail.com' LIMIT 1"));
+    }
+
+    @Test
+    void carFilter_whenFilterByEachIndexedColumn_thenUseIndex() {
+        assertNoSeqScan(carRepository.explainByFilter(CarFilter.builder().vinNumbers(List.of("00000000000000042")).build()));
+        assertNoSeqScan(carRepository.explainByFilter(CarFilter.builder().employeeIds(List.of(42L, 43L)).build()));
+        assertNoSeqScan(carRepository.explainByFilter(CarFilter.builder().models(List.of("Model42")).build()));
+        assertNoSeqScan(carRepository.explainByFilter(CarFilter.builder().manufacturers(List.of("Manufacturer42")).build()));
+        assertNoSeqScan(carRepository.explainByFilter(CarFilter.builder().departmentIds(List.of(42L, 43L)).build()));
+    }
+
+    @Test
+    void employeeFilter_whenFilterByEachIndexedColumn_thenUseIndex() {
+        assertNoSeqScan(employeeRepository.explainByFilter(EmployeeFilter.builder().departmentIds(List.of(42L)).build()));
+        assertNoSeqScan(employeeRepository.explainByFilter(EmployeeFilter.builder().phoneNumbers(List.of("0000000042")).build()));
+        assertNoSeqScan(employeeRepository.explainByFilter(EmployeeFilter.builder().lastNames(List.of("Last42")).build()));
+        assertNoSeqScan(employeeRepository.explainByFilter(EmployeeFilter.builder().firstNames(List.of("First42")).build()));
+    }
+
+    @Test
+    void departmentFilter_whenFilterByEachIndexedColumn_thenUseIndex() {
+        assertNoSeqScan(departmentRepository.explainByFilter(DepartmentFilter.builder().emails(List.of("department42@mail.com")).build()));
+        assertNoSeqScan(departmentRepository.explainByFilter(DepartmentFilter.builder().names(List.of("Department 42")).build()));
+    }
+
+    @Test
+    void filter_whenFilterByRange_thenUseIndex() {
+        assertNoSeqScan(employeeRepository.explainByFilter(EmployeeFilter.builder()
+                .birthdayFrom(LocalDate.of(1980, 1, 1))
+                .birthdayTo(LocalDate.of(1980, 12, 31))
+                .build()));
+        assertNoSeqScan(employeeRepository.explainByFilter(EmployeeFilter.builder().idFrom(1000L).idTo(2000L).build()));
+        assertNoSeqScan(carRepository.explainByFilter(CarFilter.builder().idFrom(1000L).idTo(2000L).build()));
+        assertNoSeqScan(departmentRepository.explainByFilter(DepartmentFilter.builder().idFrom(1000L).idTo(2000L).build()));
+    }
+
+    @Test
+    void filter_whenMatchCaseInsensitivelyOrByPrefix_thenUseIndex() {
+        for (MatchMode matchMode : List.of(MatchMode.CI, MatchMode.PREFIX)) {
+            assertNoSeqScan(carRepository.explainByFilter(CarFilter.builder().manufacturers(List.of("Manufacturer42")).matchMode(matchMode).build()));
+            assertNoSeqScan(carRepository.explainByFilter(CarFilter.builder().models(List.of("Model42")).matchMode(matchMode).build()));
+            assertNoSeqScan(employeeRepository.explainByFilter(EmployeeFilter.builder().lastNames(List.of("Last42")).matchMode(matchMode).build()));
+            assertNoSeqScan(departmentRepository.explainByFilter(DepartmentFilter.builder().names(List.of("Department 42")).matchMode(matchMode).build()));
+            assertNoSeqScan(departmentRepository.explainByFilter(DepartmentFilter.builder().emails(List.of("department42@")).matchMode(matchMode).build()));
+        }
+    }
+
+    @Test
+    void sortedPage_whenSortMatchesCompositeIndex_thenSkipSortStep() {
+        assertNoSort(employeeRepository.explainByFilter(new EmployeeFilter(),
+                PageRequest.of(0, 20, Sort.by(Sort.Order.asc("last_name"), Sort.Order.asc("first_name")))));
+        assertNoSort(employeeRepository.explainByFilter(new EmployeeFilter(),
+                PageRequest.of(0, 20, Sort.by(Sort.Order.desc("last_name"), Sort.Order.desc("first_name")))));
+        assertNoSort(carRepository.explainByFilter(new CarFilter(),
+                PageRequest.of(0, 20, Sort.by(Sort.Order.asc("manufacturer"), Sort.Order.asc("model")))));
+        assertNoSort(departmentRepository.explainByFilter(new DepartmentFilter(),
+                PageRequest.of(0, 20, Sort.by("name"))));
+    }
+
+    @Test
+    void keysetPage_whenSortByReferencedColumn_thenDriveFromReferencedIndex() {
+        for (Sort.Direction order : Sort.Direction.values()) {
+            List<String> cars = carRepository.explainByFilter(new CarFilter(), "employee.last_name", order, 20);
+            assertNoSeqScan(cars);
+            assertNoFullSort(cars);
+            assertUsesIndex(cars, "idx_employee_last_name_first_name_id");
+
+            List<String> employees = employeeRepository.explainByFilter(new EmployeeFilter(), "department.name", order, 20);
+            assertNoSeqScan(employees);
+            assertNoFullSort(employees);
+            assertUsesIndex(employees, "idx_department_name_id");
+        }
+    }
+
+    @Test
+    void searchBySimilarity_whenSeeded_thenUseTrigramIndex() {
+        assertUsesIndex(carRepository.explainBySimilarity("Manufacturer42 Model42", 20), "idx_car_search_trgm");
+        assertUsesIndex(employeeRepository.explainBySimilarity("First42 Last42", 20), "idx_employee_search_trgm");
+    }
+
+    private static List<String> explain(String sql) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                plan.add(rs.getString(1));
+            }
+        }
+        return plan;
+    }
+
+    private static void assertNoSeqScan(List<String> plan) {
+        String text = String.join("\n", plan);
+        assertFalse(text.contains("Seq Scan"), text);
+    }
+
+    private static void assertUsesIndex(List<String> plan, String index) {
+        String text = String.join("\n", plan);
+        assertTrue(text.contains(index), text);
+    }
+
+    private static void assertNoSort(List<String> plan) {
+        String text = String.join("\n", plan);
+        assertFalse(text.contains("Sort"), text);
+    }
+
+    private static void assertNoFullSort(List<String> plan) {
+        String text = String.join("\n", plan);
+        assertTrue(plan.stream().noneMatch(line -> line.contains("Sort  (") && !line.contains("Incremental Sort")), text);
+    }
+}
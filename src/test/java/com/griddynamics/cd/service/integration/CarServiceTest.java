@@ -3,12 +3,16 @@ package com.griddynamics.cd.service.integration;
 import com.griddynamics.cd.BaseIntegrationTest;
 import com.griddynamics.cd.entity.CarEntity;
 import com.griddynamics.cd.entity.EmployeeEntity;
+import com.griddynamics.cd.entity.TombstoneEntity;
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.BulkItemStatus;
 import com.griddynamics.cd.model.Car;
 import com.griddynamics.cd.model.Color;
 import com.griddynamics.cd.model.create.CreateCarRequest;
 import com.griddynamics.cd.model.update.UpdateCarRequest;
 import com.griddynamics.cd.repository.CarRepository;
 import com.griddynamics.cd.repository.EmployeeRepository;
+import com.griddynamics.cd.repository.TombstoneRepository;
 import com.griddynamics.cd.service.CarService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +24,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,6 +35,8 @@ public class CarServiceTest extends BaseIntegrationTest {
     @Autowired
     private EmployeeRepository employeeRepository;
     @Autowired
+    private TombstoneRepository tombstoneRepository;
+    @Autowired
     private CarService carService;
     private final List<Car> cars = List.of(
             Car.builder()
@@ -59,7 +66,7 @@ public class CarServiceTest extends BaseIntegrationTest {
                     .id(4L)
                     .manufacturer("Toyota")
                     .model("Mark 2")
-                    .vinNumber("4T3ZK3BB7BU042861")
+                    .vinNumber("JT2AE92E8H3012345")
                     .color(Color.BLACK)
                     .employeeId(2L)
                     .build()
@@ -108,7 +115,7 @@ public class CarServiceTest extends BaseIntegrationTest {
         CarEntity carEntity4 = CarEntity.builder()
                 .manufacturer("Toyota")
                 .model("Mark 2")
-                .vinNumber("4T3ZK3BB7BU042861")
+                .vinNumber("JT2AE92E8H3012345")
                 .color(Color.BLACK)
                 .employee(employeeEntity2)
                 .build();
@@ -120,7 +127,7 @@ public class CarServiceTest extends BaseIntegrationTest {
     void cleanUp() throws SQLException {
         Statement st = connection.createStatement();
 
-        st.execute("TRUNCATE TABLE car, employee RESTART IDENTITY;");
+        st.execute("TRUNCATE TABLE car, employee, tombstone RESTART IDENTITY;");
         st.close();
     }
 
@@ -238,4 +245,26 @@ public class CarServiceTest extends BaseIntegrationTest {
         );
         assertEquals("Car with 12 id was not found", thrown.getMessage());
     }
+
+    @Test
+    void deleteCars_whenPassIds_thenDeleteExistingCarsAndWriteTombstones() {
+        Map<?, ?> body = (Map<?, ?>) carService.deleteCars(List.of(1L, 3L, 12L)).getBody();
+
+        assertNotNull(body);
+        assertEquals(2L, body.get("deleted"));
+        assertEquals(1L, body.get("failed"));
+        assertEquals(List.of(
+                        new BulkItemResult(0, BulkItemStatus.DELETED, 1L, null),
+                        new BulkItemResult(1, BulkItemStatus.DELETED, 3L, null),
+                        new BulkItemResult(2, BulkItemStatus.FAILED, null, "Car with 12 id was not found")),
+                body.get("results"));
+        assertFalse(carRepository.existsById(1L));
+        assertFalse(carRepository.existsById(3L));
+        assertTrue(carRepository.existsById(2L));
+        assertEquals(List.of(1L, 3L), tombstoneRepository.findAll().stream()
+                .filter(tombstone -> TombstoneEntity.CAR.equals(tombstone.getEntityType()))
+                .map(TombstoneEntity::getEntityId)
+                .sorted()
+                .toList());
+    }
 }
@@ -3,24 +3,29 @@ package com.griddynamics.cd.service.integration;
 import com.griddynamics.cd.BaseIntegrationTest;
 import com.griddynamics.cd.entity.DepartmentEntity;
 import com.griddynamics.cd.entity.EmployeeEntity;
+import com.griddynamics.cd.entity.TombstoneEntity;
 import com.griddynamics.cd.exception.EntityDeleteException;
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.BulkItemStatus;
 import com.griddynamics.cd.model.Department;
 import com.griddynamics.cd.model.DepartmentType;
 import com.griddynamics.cd.model.create.CreateDepartmentRequest;
 import com.griddynamics.cd.model.update.UpdateDepartmentRequest;
 import com.griddynamics.cd.repository.DepartmentRepository;
 import com.griddynamics.cd.repository.EmployeeRepository;
+import com.griddynamics.cd.repository.TombstoneRepository;
 import com.griddynamics.cd.service.DepartmentService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 
-import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +36,8 @@ class DepartmentServiceTest extends BaseIntegrationTest {
     @Autowired
     private EmployeeRepository employeeRepository;
     @Autowired
+    private TombstoneRepository tombstoneRepository;
+    @Autowired
     private DepartmentService departmentService;
     List<Department> departments = List.of(
             Department.builder()
@@ -99,7 +106,7 @@ class DepartmentServiceTest extends BaseIntegrationTest {
     void cleanUp() throws SQLException {
         Statement st = connection.createStatement();
 
-        st.execute("TRUNCATE TABLE employee, department RESTART IDENTITY CASCADE ;");
+        st.execute("TRUNCATE TABLE employee, department, tombstone RESTART IDENTITY CASCADE ;");
         st.close();
     }
 
@@ -125,15 +132,15 @@ class DepartmentServiceTest extends BaseIntegrationTest {
                 .departmentType(DepartmentType.SUPPORT)
                 .build();
 
-        assertEquals(departments.get(1), departmentService.getDepartmentById(2L));
-        assertEquals(departments.get(3), departmentService.getDepartmentById(4L));
+        assertEquals(departments.get(1), departmentService.getDepartmentById(2L, null));
+        assertEquals(departments.get(3), departmentService.getDepartmentById(4L, null));
     }
 
     @Test
     void getDepartmentById_whenPassInvalidDepartmentId_thenThrowEntityNotFoundException() {
         EntityNotFoundException thrown = assertThrows(
                 EntityNotFoundException.class,
-                () -> departmentService.getDepartmentById(100L)
+                () -> departmentService.getDepartmentById(100L, null)
         );
         assertEquals("Department with 100 id was not found", thrown.getMessage());
     }
@@ -159,7 +166,7 @@ class DepartmentServiceTest extends BaseIntegrationTest {
     }
 
     @Test
-    void saveDepartment_whenPassCreateDepartmentRequestWithExistingEmail_thenThrowEntityExistsException() {
+    void saveDepartment_whenPassCreateDepartmentRequestWithExistingEmail_thenThrowDataIntegrityViolationException() {
         CreateDepartmentRequest createDepartmentRequest = CreateDepartmentRequest.builder()
                 .name("department")
                 .email("test1@test")
@@ -167,12 +174,12 @@ class DepartmentServiceTest extends BaseIntegrationTest {
                 .departmentType(DepartmentType.PROVIDER)
                 .build();
 
-        EntityExistsException thrown = assertThrows(
-                EntityExistsException.class,
+        DataIntegrityViolationException thrown = assertThrows(
+                DataIntegrityViolationException.class,
                 () -> departmentService.saveDepartment(createDepartmentRequest)
         );
 
-        assertEquals("Department with test1@test email already exist", thrown.getMessage());
+        assertTrue(thrown.getMessage().contains("uq_"), thrown.getMessage());
     }
 
     @Test
@@ -206,7 +213,7 @@ class DepartmentServiceTest extends BaseIntegrationTest {
     }
 
     @Test
-    void updateDepartment_whenPassUpdateDepartmentRequestWithExistingEmail_thenThrowEntityExistsException() {
+    void updateDepartment_whenPassUpdateDepartmentRequestWithExistingEmail_thenThrowDataIntegrityViolationException() {
         UpdateDepartmentRequest updateDepartmentRequest = UpdateDepartmentRequest.builder()
                 .name("new name")
                 .email("test1@test")
@@ -214,12 +221,12 @@ class DepartmentServiceTest extends BaseIntegrationTest {
                 .departmentType(DepartmentType.SUPPORT)
                 .build();
 
-        EntityExistsException thrown = assertThrows(
-                EntityExistsException.class,
+        DataIntegrityViolationException thrown = assertThrows(
+                DataIntegrityViolationException.class,
                 () -> departmentService.updateDepartment(updateDepartmentRequest, 3L)
         );
 
-        assertEquals("Department with test1@test email already exist", thrown.getMessage());
+        assertTrue(thrown.getMessage().contains("uq_"), thrown.getMessage());
     }
 
     @Test
@@ -254,4 +261,30 @@ class DepartmentServiceTest extends BaseIntegrationTest {
 
         assertEquals("Unable to delete department with id 2", thrown.getMessage());
     }
+
+    @Test
+    void deleteDepartments_whenSomeHaveEmployees_thenKeepThemAndWriteTombstonesOnlyForDeleted() {
+        employeeRepository.save(EmployeeEntity.builder()
+                .firstName("Joe")
+                .lastName("Doe")
+                .department(departmentRepository.getById(2L))
+                .build());
+
+        Map<?, ?> body = (Map<?, ?>) departmentService.deleteDepartments(List.of(1L, 2L, 114L)).getBody();
+
+        assertNotNull(body);
+        assertEquals(1L, body.get("deleted"));
+        assertEquals(2L, body.get("failed"));
+        assertEquals(List.of(
+                        new BulkItemResult(0, BulkItemStatus.DELETED, 1L, null),
+                        new BulkItemResult(1, BulkItemStatus.FAILED, null, "Unable to delete department with id 2"),
+                        new BulkItemResult(2, BulkItemStatus.FAILED, null, "Department with 114 id was not found")),
+                body.get("results"));
+        assertFalse(departmentRepository.existsById(1L));
+        assertTrue(departmentRepository.existsById(2L));
+        assertEquals(List.of(1L), tombstoneRepository.findAll().stream()
+                .filter(tombstone -> TombstoneEntity.DEPARTMENT.equals(tombstone.getEntityType()))
+                .map(TombstoneEntity::getEntityId)
+                .toList());
+    }
 }
@@ -5,6 +5,8 @@ import com.griddynamics.cd.entity.CarEntity;
 import com.griddynamics.cd.entity.DepartmentEntity;
 import com.griddynamics.cd.entity.EmployeeEntity;
 import com.griddynamics.cd.exception.EntityDeleteException;
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.BulkItemStatus;
 import com.griddynamics.cd.model.Color;
 import com.griddynamics.cd.model.DepartmentType;
 import com.griddynamics.cd.model.Employee;
@@ -18,13 +20,14 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 
-import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -147,15 +150,15 @@ public class EmployeeServiceTest extends BaseIntegrationTest {
 
     @Test
     void getDepartmentById_whenPassValidEmployeeIdTwoTimes_thenReturnValidModel() {
-        assertEquals(employees.get(1), employeeService.getEmployeeById(2L));
-        assertEquals(employees.get(3), employeeService.getEmployeeById(4L));
+        assertEquals(employees.get(1), employeeService.getEmployeeById(2L, null));
+        assertEquals(employees.get(3), employeeService.getEmployeeById(4L, null));
     }
 
     @Test
     void getEmployeeById_whenPassInvalidEmployeeId_thenThrowEntityNotFoundException() {
         EntityNotFoundException thrown = assertThrows(
                 EntityNotFoundException.class,
-                () -> employeeService.getEmployeeById(123L)
+                () -> employeeService.getEmployeeById(123L, null)
         );
         assertEquals("Employee with 123 id was not found", thrown.getMessage());
     }
@@ -222,19 +225,19 @@ public class EmployeeServiceTest extends BaseIntegrationTest {
     }
 
     @Test
-    void saveEmployee_whenPassCreateEmployeeRequestWithExistingPhoneNumber_thenThrowEntityExistsException() {
+    void saveEmployee_whenPassCreateEmployeeRequestWithExistingPhoneNumber_thenThrowDataIntegrityViolationException() {
         CreateEmployeeRequest createEmployeeRequest = CreateEmployeeRequest.builder()
                 .firstName("Van")
                 .lastName("Keefer")
                 .phoneNumber("7630894488")
                 .build();
 
-        EntityExistsException thrown = assertThrows(
-                EntityExistsException.class,
+        DataIntegrityViolationException thrown = assertThrows(
+                DataIntegrityViolationException.class,
                 () -> employeeService.saveEmployee(createEmployeeRequest)
         );
 
-        assertEquals("Employee with 7630894488 phone number already exist", thrown.getMessage());
+        assertTrue(thrown.getMessage().contains("uq_"), thrown.getMessage());
     }
 
     @Test
@@ -287,16 +290,16 @@ public class EmployeeServiceTest extends BaseIntegrationTest {
     }
 
     @Test
-    void updateEmployee_whenPassUpdateEmployeeRequestWithExistingPhoneNumber_thenThrowEntityExistsException() {
+    void updateEmployee_whenPassUpdateEmployeeRequestWithExistingPhoneNumber_thenThrowDataIntegrityViolationException() {
         UpdateEmployeeRequest updateEmployeeRequest = UpdateEmployeeRequest.builder()
                 .phoneNumber("7630894488")
                 .build();
 
-        EntityExistsException thrown = assertThrows(
-                EntityExistsException.class,
+        DataIntegrityViolationException thrown = assertThrows(
+                DataIntegrityViolationException.class,
                 () -> employeeService.updateEmployee(updateEmployeeRequest, 2L)
         );
-        assertEquals("Employee with 7630894488 phone number already exist", thrown.getMessage());
+        assertTrue(thrown.getMessage().contains("uq_"), thrown.getMessage());
     }
 
     @Test
@@ -349,4 +352,28 @@ public class EmployeeServiceTest extends BaseIntegrationTest {
 
         assertEquals("Unable to delete employee with id 2", thrown.getMessage());
     }
+
+    @Test
+    void deleteEmployees_whenSomeHaveCars_thenDeleteOnlyUnreferencedEmployees() {
+        carRepository.save(CarEntity.builder()
+                .manufacturer("Audi")
+                .model("A2")
+                .vinNumber("JH4KA8271NC000480")
+                .employee(employeeRepository.getById(2L))
+                .color(Color.WHITE)
+                .build());
+
+        Map<?, ?> body = (Map<?, ?>) employeeService.deleteEmployees(List.of(1L, 2L, 114L)).getBody();
+
+        assertNotNull(body);
+        assertEquals(1L, body.get("deleted"));
+        assertEquals(2L, body.get("failed"));
+        assertEquals(List.of(
+                        new BulkItemResult(0, BulkItemStatus.DELETED, 1L, null),
+                        new BulkItemResult(1, BulkItemStatus.FAILED, null, "Unable to delete employee with id 2"),
+                        new BulkItemResult(2, BulkItemStatus.FAILED, null, "Employee with 114 id was not found")),
+                body.get("results"));
+        assertFalse(employeeRepository.existsById(1L));
+        assertTrue(employeeRepository.existsById(2L));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.griddynamics.cd.service.integration;
+
+import com.griddynamics.cd.BaseIntegrationTest;
+import com.griddynamics.cd.model.Car;
+import com.griddynamics.cd.model.Department;
+import com.griddynamics.cd.model.Employee;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.service.CarService;
+import com.griddynamics.cd.service.DepartmentService;
+import com.griddynamics.cd.service.EmployeeService;
+import com.griddynamics.cd.service.SyncService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExpandQueryCountTest extends BaseIntegrationTest {
+
+    @Autowired
+    private CarService carService;
+    @Autowired
+    private DepartmentService departmentService;
+    @Autowired
+    private EmployeeService employeeService;
+    @Autowired
+    private SyncService syncService;
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        Statement st = connection.createStatement();
+
+        st.execute("""
+                INSERT INTO department (name, email, description, department_type)
+                VALUES ('Department 1', 'department1@mail.com', 'Description', 'SALE')
+                """);
+        st.execute("""
+                INSERT INTO employee (first_name, last_name, birthday, address, phone_number, department_id)
+                SELECT 'First' || n, 'Last' || n, DATE '1980-01-01', 'Address ' || n, LPAD(n::TEXT, 10, '0'), 1
+                FROM generate_series(1, 50) AS n
+                """);
+        st.execute("""
+                INSERT INTO car (manufacturer, model, vin_number, employee_id, color)
+                SELECT 'Manufacturer', 'Model', LPAD(n::TEXT, 17, '0'), 1 + n % 50, 'BLACK'
+                FROM generate_series(1, 150) AS n
+                """);
+        st.close();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        statistics.setStatisticsEnabled(false);
+
+        Statement st = connection.createStatement();
+        st.execute("TRUNCATE TABLE car, employee, department RESTART IDENTITY;");
+        st.close();
+    }
+
+    @Test
+    void getDepartmentById_whenExpandEmployeesAndCars_thenUseOneQueryPerLevel() {
+        Department department = departmentService.getDepartmentById(1L, List.of("employees", "employees.cars"));
+
+        assertEquals(50, department.getEmployees().size());
+        assertEquals(150, department.getEmployees().stream().mapToInt(employee -> employee.getCars().size()).sum());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getDepartmentById_whenExpandEmployees_thenSkipCars() {
+        Department department = departmentService.getDepartmentById(1L, List.of("employees"));
+
+        assertEquals(50, department.getEmployees().size());
+        assertNull(department.getEmployees().get(0).getCars());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getEmployeeById_whenExpandCars_thenUseOneExtraQuery() {
+        Employee employee = employeeService.getEmployeeById(2L, List.of("cars"));
+
+        assertEquals(3, employee.getCars().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllCars_whenCarsHaveOwners_thenReadOneChunkWithoutLoadingOwners() {
+        List<Car> cars = carService.getAllCars();
+
+        assertEquals(150, cars.size());
+        assertEquals(2L, cars.get(0).getEmployeeId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllEmployees_whenEmployeesHaveDepartment_thenReadOneChunkWithoutLoadingDepartment() {
+        List<Employee> employees = employeeService.getAllEmployees();
+
+        assertEquals(50, employees.size());
+        assertEquals(1L, employees.get(0).getDepartmentId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void searchCars_whenCarsHaveOwners_thenReadPageWithoutLoadingOwners() {
+        Map<?, ?> result = (Map<?, ?>) carService.searchCars("Model", null, 200).getBody();
+
+        assertNotNull(result);
+        assertEquals(150, ((List<?>) result.get("cars")).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void searchEmployees_whenEmployeesHaveDepartment_thenReadPageWithoutLoadingDepartment() {
+        Map<?, ?> result = (Map<?, ?>) employeeService.searchEmployees("First1", null, 200).getBody();
+
+        assertNotNull(result);
+        assertEquals(1L, ((Employee) ((List<?>) result.get("employees")).get(0)).getDepartmentId());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getChanges_whenCarsHaveOwners_thenReadPageAndTombstonesWithoutLoadingOwners() {
+        // the trigger lookup is made once per application, not per sync
+        tombstoneRepository.isChangeTrackingInstalled();
+        statistics.clear();
+
+        Map<?, ?> changes = (Map<?, ?>) syncService.getChanges("cars", null, 200).getBody();
+
+        assertNotNull(changes);
+        assertEquals(150, ((List<?>) changes.get("cars")).size());
+        assertEquals(2L, ((Car) ((List<?>) changes.get("cars")).get(0)).getEmployeeId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getChanges_whenEmployeesHaveDepartment_thenReadPageAndTombstonesWithoutLoadingDepartment() {
+        tombstoneRepository.isChangeTrackingInstalled();
+        statistics.clear();
+
+        Map<?, ?> changes = (Map<?, ?>) syncService.getChanges("employees", null, 200).getBody();
+
+        assertNotNull(changes);
+        assertEquals(50, ((List<?>) changes.get("employees")).size());
+        assertEquals(1L, ((Employee) ((List<?>) changes.get("employees")).get(0)).getDepartmentId());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
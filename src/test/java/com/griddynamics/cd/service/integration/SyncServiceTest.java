@@ -0,0 +1,69 @@
+package com.griddynamics.cd.service.integration;
+
+import com.griddynamics.cd.BaseIntegrationTest;
+import com.griddynamics.cd.model.Car;
+import com.griddynamics.cd.service.SyncService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyncServiceTest extends BaseIntegrationTest {
+
+    @Autowired
+    private SyncService syncService;
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        Statement st = connection.createStatement();
+
+        st.execute("TRUNCATE TABLE car, tombstone RESTART IDENTITY;");
+        st.close();
+    }
+
+    @Test
+    void getChanges_whenWriteCommitsAfterLaterWrite_thenHoldBackLaterWriteUntilBothCommitted() throws SQLException {
+        String token = (String) sync(null).get("nextToken");
+
+        try (Connection writer = DriverManager.getConnection(container.getJdbcUrl(), container.getUsername(), container.getPassword())) {
+            writer.setAutoCommit(false);
+            Statement inFlight = writer.createStatement();
+            inFlight.execute("INSERT INTO car (manufacturer, model, color) VALUES ('Toyota', 'In flight', 'BLACK')");
+            inFlight.execute("INSERT INTO tombstone (entity_type, entity_id) VALUES ('car', 100)");
+
+            Statement st = connection.createStatement();
+            st.execute("INSERT INTO car (manufacturer, model, color) VALUES ('Honda', 'Committed', 'WHITE')");
+            st.execute("INSERT INTO tombstone (entity_type, entity_id) VALUES ('car', 101)");
+            st.close();
+
+            Map<?, ?> uncommitted = sync(token);
+            assertEquals(List.of(), uncommitted.get("cars"));
+            assertEquals(List.of(), uncommitted.get("deletedIds"));
+            assertEquals(token, uncommitted.get("nextToken"));
+
+            writer.commit();
+            inFlight.close();
+        }
+
+        Map<?, ?> committed = sync(token);
+        assertEquals(List.of("In flight", "Committed"), ((List<?>) committed.get("cars")).stream()
+                .map(car -> ((Car) car).getModel())
+                .toList());
+        assertEquals(List.of(100L, 101L), committed.get("deletedIds"));
+        assertEquals(List.of(), sync((String) committed.get("nextToken")).get("cars"));
+    }
+
+    private Map<?, ?> sync(String since) {
+        Map<?, ?> body = (Map<?, ?>) syncService.getChanges("cars", since, 100).getBody();
+        assertNotNull(body);
+        return body;
+    }
+}
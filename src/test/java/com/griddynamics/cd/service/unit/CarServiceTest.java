@@ -1,23 +1,63 @@
 package com.griddynamics.cd.service.unit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.griddynamics.cd.entity.CarEntity;
 import com.griddynamics.cd.entity.EmployeeEntity;
+import com.griddynamics.cd.entity.TombstoneEntity;
+import com.griddynamics.cd.exception.ColumnNotFoundException;
+import com.griddynamics.cd.exception.InvalidCursorException;
+import com.griddynamics.cd.exception.PerItemChangeException;
+import com.griddynamics.cd.exception.ResultTooLargeException;
 import com.griddynamics.cd.mapper.CarMapper;
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.BulkItemStatus;
 import com.griddynamics.cd.model.Car;
+import com.griddynamics.cd.model.Color;
+import com.griddynamics.cd.model.CountMode;
+import com.griddynamics.cd.model.ExportFormat;
 import com.griddynamics.cd.model.create.CreateCarRequest;
+import com.griddynamics.cd.model.filter.CarFilter;
+import com.griddynamics.cd.model.update.BulkUpdateItem;
+import com.griddynamics.cd.model.update.BulkUpdateRequest;
 import com.griddynamics.cd.model.update.UpdateCarRequest;
 import com.griddynamics.cd.repository.CarRepository;
 import com.griddynamics.cd.repository.EmployeeRepository;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
+import com.griddynamics.cd.repository.query.FacetCount;
+import com.griddynamics.cd.repository.query.KeysetSlice;
+import com.griddynamics.cd.repository.query.Upserted;
 import com.griddynamics.cd.service.CarService;
+import com.griddynamics.cd.service.ExportWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.persistence.EntityNotFoundException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -25,6 +65,7 @@ class CarServiceTest {
 
     private CarRepository carRepository;
     private EmployeeRepository employeeRepository;
+    private TombstoneRepository tombstoneRepository;
     private CarMapper carMapper;
     private CarService carService;
 
@@ -32,8 +73,10 @@ class CarServiceTest {
     void init() {
         carRepository = mock(CarRepository.class);
         employeeRepository = mock(EmployeeRepository.class);
+        tombstoneRepository = mock(TombstoneRepository.class);
         carMapper = mock(CarMapper.class);
-        carService = new CarService(carRepository, employeeRepository, carMapper);
+        carService = new CarService(carRepository, employeeRepository, tombstoneRepository, carMapper,
+                new ExportWriter(new ObjectMapper()), mock(PlatformTransactionManager.class));
     }
 
     @BeforeEach
@@ -58,16 +101,221 @@ class CarServiceTest {
     }
 
     @Test
-    void getAllCars_whenCallMethod_thenValidMethodCallsNumber() {
-        when(carRepository.findAll())
-                .thenReturn(List.of(new CarEntity(), new CarEntity()));
+    void getAllCars_whenCallMethod_thenReadOneChunkPastTheLimit() {
+        doAnswer(invocation -> {
+            Consumer<List<CarEntity>> action = invocation.getArgument(2);
+            action.accept(List.of(new CarEntity(), new CarEntity()));
+            return null;
+        }).when(carRepository).forEachChunkByFilter(any(CarFilter.class), eq(1001), any());
+
+        assertEquals(2, carService.getAllCars().size());
+        verify(carRepository, times(1)).forEachChunkByFilter(eq(new CarFilter()), eq(1001), any());
+        verify(carMapper, times(2)).toCarModel(any(CarEntity.class));
+    }
+
+    @Test
+    void getAllCars_whenMoreCarsThanLimit_thenThrowResultTooLargeException() {
+        doAnswer(invocation -> {
+            Consumer<List<CarEntity>> action = invocation.getArgument(2);
+            action.accept(Collections.nCopies(1001, new CarEntity()));
+            return null;
+        }).when(carRepository).forEachChunkByFilter(any(CarFilter.class), eq(1001), any());
+
+        assertThrows(ResultTooLargeException.class, () -> carService.getAllCars());
+    }
+
+    @Test
+    void forEachCarChunk_whenRepositoryReturnsChunks_thenPassMappedChunks() {
+        doAnswer(invocation -> {
+            Consumer<List<CarEntity>> action = invocation.getArgument(2);
+            action.accept(List.of(new CarEntity(), new CarEntity()));
+            action.accept(List.of(new CarEntity()));
+            return null;
+        }).when(carRepository).forEachChunkByFilter(any(CarFilter.class), eq(2), any());
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        carService.forEachCarChunk(new CarFilter(), 2, chunk -> chunkSizes.add(chunk.size()));
+
+        assertEquals(List.of(2, 1), chunkSizes);
+        verify(carMapper, times(3)).toCarModel(any(CarEntity.class));
+    }
+
+    @Test
+    void getCarsWithFiltering_whenPassCursor_thenUseKeysetQuery() {
+        when(carRepository.existsByColumnName("model"))
+                .thenReturn(true);
+        when(carRepository.findAllByFilterAfterCursor(any(CarFilter.class), eq("model"), eq(Sort.Direction.ASC), eq(""), eq(2)))
+                .thenReturn(new KeysetSlice<>(List.of(new CarEntity(), new CarEntity()), "next"));
 
-        carService.getAllCars();
+        ResponseEntity<?> response = carService.getCarsWithFiltering(new CarFilter(), null, 0, 2, "model", Sort.Direction.ASC, Sort.unsorted(), "", CountMode.EXACT);
 
-        verify(carRepository, times(1)).findAll();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("next", ((Map<?, ?>) Objects.requireNonNull(response.getBody())).get("nextCursor"));
+        verify(carRepository, never()).findAllByFilter(any(), any());
         verify(carMapper, times(2)).toCarModel(any(CarEntity.class));
     }
 
+    @Test
+    void getCarsWithFiltering_whenExactCount_thenReturnTotalsOfAllPages() {
+        when(carRepository.existsByColumnName("id"))
+                .thenReturn(true);
+        when(carRepository.findAllByFilter(any(CarFilter.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(new CarEntity(), new CarEntity()), PageRequest.of(0, 2), 7));
+
+        ResponseEntity<?> response = carService.getCarsWithFiltering(new CarFilter(), null, 0, 2, "id", Sort.Direction.ASC, Sort.unsorted(), null, CountMode.EXACT);
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        assertEquals(7L, body.get("totalObjects"));
+        assertEquals(4, body.get("totalPages"));
+    }
+
+    @Test
+    void getCarsWithFiltering_whenCountNone_thenSkipCounting() {
+        when(carRepository.existsByColumnName("id"))
+                .thenReturn(true);
+        when(carRepository.findSliceByFilter(any(CarFilter.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(new CarEntity()), PageRequest.of(0, 2), false));
+
+        ResponseEntity<?> response = carService.getCarsWithFiltering(new CarFilter(), null, 0, 2, "id", Sort.Direction.ASC, Sort.unsorted(), null, CountMode.NONE);
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        assertEquals(false, body.get("hasNext"));
+        assertFalse(body.containsKey("totalObjects"));
+        verify(carRepository, never()).findAllByFilter(any(), any());
+        verify(carRepository, never()).estimateCountByFilter(any());
+    }
+
+    @Test
+    void getCarsWithFiltering_whenPassSort_thenPageByEverySortColumn() {
+        when(carRepository.existsByColumnName(anyString()))
+                .thenReturn(true);
+        when(carRepository.findSliceByFilter(any(CarFilter.class), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(new CarEntity()), PageRequest.of(0, 2), false));
+        Sort sort = Sort.by(Sort.Order.asc("manufacturer"), Sort.Order.asc("model"));
+
+        carService.getCarsWithFiltering(new CarFilter(), null, 0, 2, "id", Sort.Direction.ASC, sort, null, CountMode.NONE);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(carRepository).findSliceByFilter(any(CarFilter.class), pageable.capture());
+        assertEquals(sort, pageable.getValue().getSort());
+        verify(carRepository, never()).existsByColumnName("id");
+    }
+
+    @Test
+    void getCarsWithFiltering_whenSortByUnknownColumn_thenThrowColumnNotFoundException() {
+        when(carRepository.existsByColumnName("manufacturer"))
+                .thenReturn(true);
+        Sort sort = Sort.by(Sort.Order.asc("manufacturer"), Sort.Order.desc("unknown"));
+
+        assertThrows(ColumnNotFoundException.class, () -> carService.getCarsWithFiltering(new CarFilter(), null, 0, 2,
+                "id", Sort.Direction.ASC, sort, null, CountMode.NONE));
+        verify(carRepository, never()).findSliceByFilter(any(), any(Pageable.class));
+    }
+
+    @Test
+    void getCarsWithFiltering_whenPassCursorWithSeveralSortColumns_thenThrowInvalidCursorException() {
+        when(carRepository.existsByColumnName(anyString()))
+                .thenReturn(true);
+        Sort sort = Sort.by(Sort.Order.asc("manufacturer"), Sort.Order.asc("model"));
+
+        assertThrows(InvalidCursorException.class, () -> carService.getCarsWithFiltering(new CarFilter(), null, 0, 2,
+                "id", Sort.Direction.ASC, sort, "", CountMode.NONE));
+    }
+
+    @Test
+    void getCarsWithFiltering_whenPassFields_thenReturnProjectionWithoutMapping() {
+        when(carRepository.existsByColumnName("id"))
+                .thenReturn(true);
+        when(carRepository.findSliceByFilter(any(CarFilter.class), eq(List.of("vinNumber")), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(Map.of("id", 1L, "vinNumber", "VIN1")), PageRequest.of(0, 2), false));
+
+        ResponseEntity<?> response = carService.getCarsWithFiltering(new CarFilter(), List.of("vinNumber"), 0, 2, "id", Sort.Direction.ASC, Sort.unsorted(), null, CountMode.NONE);
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        assertEquals(List.of(Map.of("id", 1L, "vinNumber", "VIN1")), body.get("cars"));
+        verify(carRepository, never()).findSliceByFilter(any(), any(Pageable.class));
+        verify(carMapper, never()).toCarModel(any(CarEntity.class));
+    }
+
+    @Test
+    void getCarFacets_whenPassFilter_thenReturnCountsByFilterParamName() {
+        when(carRepository.countFacetsByFilter(any(CarFilter.class)))
+                .thenReturn(Map.of(
+                        "color", List.of(new FacetCount("RED", 3)),
+                        "manufacturer", List.of(new FacetCount("Toyota", 2), new FacetCount("Ford", 1)),
+                        "employee_id", List.of(new FacetCount(null, 3))));
+
+        ResponseEntity<?> response = carService.getCarFacets(new CarFilter());
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        assertEquals(List.of(new FacetCount("RED", 3)), body.get("colors"));
+        assertEquals(2, ((List<?>) body.get("manufacturers")).size());
+        assertEquals(List.of(new FacetCount(null, 3)), body.get("employeeIds"));
+        verify(carRepository, times(1)).countFacetsByFilter(any(CarFilter.class));
+    }
+
+    @Test
+    void countCars_whenExact_thenCountWithoutReadingRows() {
+        when(carRepository.countByFilter(any(CarFilter.class)))
+                .thenReturn(12L);
+
+        ResponseEntity<?> response = carService.countCars(new CarFilter(), false);
+
+        assertEquals("12", response.getHeaders().getFirst("X-Total-Count"));
+        assertEquals(12L, ((Map<?, ?>) Objects.requireNonNull(response.getBody())).get("totalObjects"));
+        verify(carRepository, never()).findAllByFilter(any(), any());
+        verify(carRepository, never()).estimateCountByFilter(any());
+    }
+
+    @Test
+    void countCars_whenEstimate_thenReadPlannerEstimate() {
+        when(carRepository.estimateCountByFilter(any(CarFilter.class)))
+                .thenReturn(1000L);
+
+        ResponseEntity<?> response = carService.countCars(new CarFilter(), true);
+
+        assertEquals("1000", response.getHeaders().getFirst("X-Total-Count"));
+        verify(carRepository, never()).countByFilter(any());
+    }
+
+    @Test
+    void exportCars_whenCsvFormat_thenWriteHeaderAndEscapedRows() throws IOException {
+        CarEntity first = new CarEntity();
+        CarEntity second = new CarEntity();
+        when(carRepository.streamByFilter(any(CarFilter.class)))
+                .thenReturn(Stream.of(first, second));
+        when(carMapper.toCarModel(first))
+                .thenReturn(new Car(1L, "Toyota", "Corolla, 2010", "VIN1", 5L, Color.RED));
+        when(carMapper.toCarModel(second))
+                .thenReturn(new Car(2L, "Ford", "Focus", null, null, Color.BLACK));
+
+        ResponseEntity<StreamingResponseBody> response = carService.exportCars(new CarFilter(), ExportFormat.CSV);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Objects.requireNonNull(response.getBody()).writeTo(output);
+
+        assertEquals("text/csv", Objects.requireNonNull(response.getHeaders().getContentType()).toString());
+        assertEquals("""
+                id,manufacturer,model,vinNumber,employeeId,color\r
+                1,Toyota,"Corolla, 2010",VIN1,5,RED\r
+                2,Ford,Focus,,,BLACK\r
+                """, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void exportCars_whenNdjsonFormat_thenWriteOneObjectPerLine() throws IOException {
+        when(carRepository.streamByFilter(any(CarFilter.class)))
+                .thenReturn(Stream.of(new CarEntity(), new CarEntity()));
+        when(carMapper.toCarModel(any(CarEntity.class)))
+                .thenReturn(Car.builder().id(1L).color(Color.RED).build());
+
+        ResponseEntity<StreamingResponseBody> response = carService.exportCars(new CarFilter(), ExportFormat.NDJSON);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Objects.requireNonNull(response.getBody()).writeTo(output);
+
+        String line = "{\"id\":1,\"manufacturer\":null,\"model\":null,\"vinNumber\":null,\"employeeId\":null,\"color\":\"RED\"}\n";
+        assertEquals(line + line, output.toString(StandardCharsets.UTF_8));
+    }
+
     @Test
     void getCarById_whenPassCarId_thenValidMethodCallsNumber() {
         carService.getCarById(1L);
@@ -79,6 +327,25 @@ class CarServiceTest {
         verify(carMapper, times(3)).toCarModel(any(CarEntity.class));
     }
 
+    @Test
+    void getCarsByIds_whenSomeIdsMissing_thenReturnRequestOrderWithNullMarkers() {
+        CarEntity first = CarEntity.builder().id(1L).build();
+        CarEntity third = CarEntity.builder().id(3L).build();
+        when(carRepository.findAllByIds(List.of(3L, 2L, 1L)))
+                .thenReturn(List.of(first, third));
+        when(carMapper.toCarModel(first))
+                .thenReturn(Car.builder().id(1L).build());
+        when(carMapper.toCarModel(third))
+                .thenReturn(Car.builder().id(3L).build());
+
+        ResponseEntity<?> response = carService.getCarsByIds(List.of(3L, 2L, 1L));
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        assertEquals(Arrays.asList(Car.builder().id(3L).build(), null, Car.builder().id(1L).build()), body.get("cars"));
+        assertEquals(List.of(2L), body.get("notFoundIds"));
+        verify(carRepository, never()).findById(anyLong());
+    }
+
     @Test
     void getCarById_whenPassInvalidCarId_thenThrowEntityNotFoundException() {
         when(carRepository.findById(100L))
@@ -93,12 +360,12 @@ class CarServiceTest {
 
     @Test
     void getCarByEmployeeId_whenPassEmployeeId_thenValidMethodCallsNumber() {
-        when(carRepository.findAllCarsByEmployeeId(1L))
+        when(carRepository.findAllCarsByEmployeeId(eq(1L), any(Pageable.class)))
                 .thenReturn(List.of(new CarEntity(), new CarEntity()));
 
         carService.getCarsByEmployeeId(1L);
 
-        verify(carRepository, times(1)).findAllCarsByEmployeeId(1L);
+        verify(carRepository, times(1)).findAllCarsByEmployeeId(eq(1L), any(Pageable.class));
         verify(carMapper, times(2)).toCarModel(any(CarEntity.class));
     }
 
@@ -159,6 +426,181 @@ class CarServiceTest {
         assertEquals("Employee with 10 id was not found", thrown.getMessage());
     }
 
+    @Test
+    void saveCars_whenEmployeeUnknown_thenFailThatItemAndInsertOthersAtOnce() {
+        CreateCarRequest first = CreateCarRequest.builder().color(Color.RED).employeeId(5L).build();
+        CreateCarRequest second = CreateCarRequest.builder().color(Color.RED).employeeId(9L).build();
+        CreateCarRequest third = CreateCarRequest.builder().color(Color.BLACK).build();
+        when(employeeRepository.findAllByIds(List.of(5L, 9L)))
+                .thenReturn(List.of(EmployeeEntity.builder().id(5L).build()));
+        when(carMapper.toCarEntity(any(CreateCarRequest.class)))
+                .thenAnswer(invocation -> new CarEntity());
+        when(carRepository.insertAll(anyList()))
+                .thenReturn(List.of(100L, 101L));
+
+        ResponseEntity<?> response = carService.saveCars(List.of(first, second, third));
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        List<?> results = (List<?>) body.get("results");
+        assertEquals(new BulkItemResult(0, BulkItemStatus.CREATED, 100L, null), results.get(0));
+        assertEquals(new BulkItemResult(1, BulkItemStatus.FAILED, null, "Employee with 9 id was not found"), results.get(1));
+        assertEquals(new BulkItemResult(2, BulkItemStatus.CREATED, 101L, null), results.get(2));
+        assertEquals(2L, body.get("created"));
+        assertEquals(1L, body.get("failed"));
+        verify(carRepository, times(1)).insertAll(anyList());
+        verify(employeeRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void saveCars_whenVinTakenOrRepeated_thenFailThatItemAndInsertOthers() {
+        CreateCarRequest taken = CreateCarRequest.builder().vinNumber("JH4KA7530MC011312").color(Color.RED).build();
+        CreateCarRequest first = CreateCarRequest.builder().vinNumber("KNDJE723297570351").color(Color.RED).build();
+        CreateCarRequest repeated = CreateCarRequest.builder().vinNumber("KNDJE723297570351").color(Color.BLACK).build();
+        when(carRepository.findIdsByVinNumbers(List.of("JH4KA7530MC011312", "KNDJE723297570351")))
+                .thenReturn(Map.of("JH4KA7530MC011312", 7L));
+        when(carMapper.toCarEntity(any(CreateCarRequest.class)))
+                .thenAnswer(invocation -> new CarEntity());
+        when(carRepository.insertAll(anyList()))
+                .thenReturn(List.of(100L));
+
+        ResponseEntity<?> response = carService.saveCars(List.of(taken, first, repeated));
+
+        List<?> results = (List<?>) ((Map<?, ?>) Objects.requireNonNull(response.getBody())).get("results");
+        assertEquals(new BulkItemResult(0, BulkItemStatus.FAILED, null, "Car with JH4KA7530MC011312 vin number already exist"), results.get(0));
+        assertEquals(new BulkItemResult(1, BulkItemStatus.CREATED, 100L, null), results.get(1));
+        assertEquals(new BulkItemResult(2, BulkItemStatus.FAILED, null, "Car with KNDJE723297570351 vin number already exist"), results.get(2));
+        verify(carRepository, times(1)).findIdsByVinNumbers(anyList());
+    }
+
+    @Test
+    void upsertCarByVin_whenVinIsNew_thenReturnCreated() {
+        CreateCarRequest request = CreateCarRequest.builder().color(Color.RED).build();
+        when(carMapper.toCarEntity(any(CreateCarRequest.class)))
+                .thenAnswer(invocation -> new CarEntity());
+        when(carRepository.upsertByVinNumber(any(CarEntity.class)))
+                .thenAnswer(invocation -> new Upserted<>(invocation.getArgument(0), true));
+
+        ResponseEntity<Car> response = carService.upsertCarByVin("JH4KA7530MC011312", request);
+
+        ArgumentCaptor<CarEntity> captor = ArgumentCaptor.forClass(CarEntity.class);
+        verify(carRepository, times(1)).upsertByVinNumber(captor.capture());
+        assertEquals("JH4KA7530MC011312", captor.getValue().getVinNumber());
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(carRepository, never()).save(any(CarEntity.class));
+    }
+
+    @Test
+    void upsertCarsByVin_whenPassItems_thenUpsertAtOnceAndReportEveryItem() {
+        List<CreateCarRequest> requests = List.of(
+                CreateCarRequest.builder().vinNumber("JH4KA7530MC011312").color(Color.RED).build(),
+                CreateCarRequest.builder().color(Color.RED).build(),
+                CreateCarRequest.builder().vinNumber("KNDJE723297570351").color(Color.RED).employeeId(9L).build(),
+                CreateCarRequest.builder().vinNumber("JH4KA7530MC011312").color(Color.BLACK).build(),
+                CreateCarRequest.builder().vinNumber("1HGCG2254WA015540").color(Color.BLACK).build());
+        when(employeeRepository.findAllByIds(List.of(9L)))
+                .thenReturn(List.of());
+        when(carMapper.toCarEntity(any(CreateCarRequest.class)))
+                .thenAnswer(invocation -> new CarEntity());
+        when(carRepository.upsertAllByVinNumber(anyList()))
+                .thenReturn(List.of(new Upserted<>(7L, false), new Upserted<>(100L, true)));
+
+        ResponseEntity<?> response = carService.upsertCarsByVin(requests);
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        List<?> results = (List<?>) body.get("results");
+        assertEquals(new BulkItemResult(0, BulkItemStatus.UPDATED, 7L, null), results.get(0));
+        assertEquals(new BulkItemResult(1, BulkItemStatus.FAILED, null, "Vin number is required"), results.get(1));
+        assertEquals(new BulkItemResult(2, BulkItemStatus.FAILED, null, "Employee with 9 id was not found"), results.get(2));
+        assertEquals(new BulkItemResult(3, BulkItemStatus.FAILED, null, "Car with JH4KA7530MC011312 vin number is repeated in the request"), results.get(3));
+        assertEquals(new BulkItemResult(4, BulkItemStatus.CREATED, 100L, null), results.get(4));
+        assertEquals(1L, body.get("created"));
+        assertEquals(1L, body.get("updated"));
+        verify(carRepository, times(1)).upsertAllByVinNumber(anyList());
+    }
+
+    @Test
+    void updateCars_whenPassItems_thenUpdateAtOnceAndReportEveryItem() {
+        BulkUpdateRequest<CarFilter, UpdateCarRequest> request = BulkUpdateRequest.<CarFilter, UpdateCarRequest>builder()
+                .items(List.of(
+                        new BulkUpdateItem<>(1L, UpdateCarRequest.builder().color(Color.RED).build()),
+                        new BulkUpdateItem<>(2L, UpdateCarRequest.builder().employeeId(9L).build()),
+                        new BulkUpdateItem<>(1L, UpdateCarRequest.builder().color(Color.BLACK).build()),
+                        new BulkUpdateItem<>(3L, UpdateCarRequest.builder().color(Color.RED).build())))
+                .build();
+        when(employeeRepository.findAllByIds(List.of(9L)))
+                .thenReturn(List.of());
+        when(carMapper.toCarEntity(any(UpdateCarRequest.class), any(CarEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(carRepository.updateAll(anyList()))
+                .thenReturn(List.of(1L));
+
+        ResponseEntity<?> response = carService.updateCars(request);
+
+        List<?> results = (List<?>) ((Map<?, ?>) Objects.requireNonNull(response.getBody())).get("results");
+        assertEquals(new BulkItemResult(0, BulkItemStatus.UPDATED, 1L, null), results.get(0));
+        assertEquals(new BulkItemResult(1, BulkItemStatus.FAILED, null, "Employee with 9 id was not found"), results.get(1));
+        assertEquals(new BulkItemResult(2, BulkItemStatus.FAILED, null, "Car with 1 id is repeated in the request"), results.get(2));
+        assertEquals(new BulkItemResult(3, BulkItemStatus.FAILED, null, "Car with 3 id was not found"), results.get(3));
+        verify(carRepository, times(1)).updateAll(anyList());
+        verify(carRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void updateCars_whenItemTakesVinOfAnotherCar_thenFailThatItem() {
+        BulkUpdateRequest<CarFilter, UpdateCarRequest> request = BulkUpdateRequest.<CarFilter, UpdateCarRequest>builder()
+                .items(List.of(
+                        new BulkUpdateItem<>(1L, UpdateCarRequest.builder().vinNumber("JH4KA7530MC011312").build()),
+                        new BulkUpdateItem<>(2L, UpdateCarRequest.builder().vinNumber("KNDJE723297570351").build()),
+                        new BulkUpdateItem<>(3L, UpdateCarRequest.builder().vinNumber("KNDJE723297570351").build())))
+                .build();
+        when(carRepository.findIdsByVinNumbers(List.of("JH4KA7530MC011312", "KNDJE723297570351")))
+                .thenReturn(Map.of("JH4KA7530MC011312", 1L));
+        when(carMapper.toCarEntity(any(UpdateCarRequest.class), any(CarEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(carRepository.updateAll(anyList()))
+                .thenReturn(List.of(1L, 2L));
+
+        ResponseEntity<?> response = carService.updateCars(request);
+
+        List<?> results = (List<?>) ((Map<?, ?>) Objects.requireNonNull(response.getBody())).get("results");
+        assertEquals(new BulkItemResult(0, BulkItemStatus.UPDATED, 1L, null), results.get(0));
+        assertEquals(new BulkItemResult(1, BulkItemStatus.UPDATED, 2L, null), results.get(1));
+        assertEquals(new BulkItemResult(2, BulkItemStatus.FAILED, null, "Car with KNDJE723297570351 vin number already exist"), results.get(2));
+    }
+
+    @Test
+    void updateCars_whenFilterChangesVinNumber_thenThrowPerItemChangeException() {
+        BulkUpdateRequest<CarFilter, UpdateCarRequest> request = BulkUpdateRequest.<CarFilter, UpdateCarRequest>builder()
+                .filter(new CarFilter())
+                .changes(UpdateCarRequest.builder().vinNumber("JH4KA7530MC011312").build())
+                .build();
+
+        PerItemChangeException thrown = assertThrows(
+                PerItemChangeException.class,
+                () -> carService.updateCars(request)
+        );
+        assertEquals("Field vinNumber can only be changed per item", thrown.getMessage());
+        verify(carRepository, never()).updateAllByFilter(any(), any());
+    }
+
+    @Test
+    void updateCars_whenPassFilter_thenUpdateMatchingRowsInOneStatement() {
+        CarFilter filter = CarFilter.builder().models(List.of("Corolla")).build();
+        BulkUpdateRequest<CarFilter, UpdateCarRequest> request = BulkUpdateRequest.<CarFilter, UpdateCarRequest>builder()
+                .filter(filter)
+                .changes(UpdateCarRequest.builder().color(Color.RED).build())
+                .build();
+        when(carMapper.toCarEntity(any(UpdateCarRequest.class), any(CarEntity.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(carRepository.updateAllByFilter(eq(filter), any(CarEntity.class)))
+                .thenReturn(42);
+
+        ResponseEntity<?> response = carService.updateCars(request);
+
+        assertEquals(42, ((Map<?, ?>) Objects.requireNonNull(response.getBody())).get("updated"));
+        verify(carRepository, never()).updateAll(anyList());
+    }
+
     @Test
     void updateCar_whenUpdateCarRequestWithoutEmployeeId_thenValidMethodCallsNumber() {
         UpdateCarRequest updateCarRequest = new UpdateCarRequest();
@@ -230,6 +672,19 @@ class CarServiceTest {
         assertEquals(1L, captor.getValue());
     }
 
+    @Test
+    void deleteCar_whenDeleted_thenRecordTombstone() {
+        ArgumentCaptor<TombstoneEntity> captor = ArgumentCaptor.forClass(TombstoneEntity.class);
+        when(carRepository.existsById(1L))
+                .thenReturn(true);
+
+        carService.deleteCar(1L);
+
+        verify(tombstoneRepository, times(1)).save(captor.capture());
+        assertEquals(TombstoneEntity.CAR, captor.getValue().getEntityType());
+        assertEquals(1L, captor.getValue().getEntityId());
+    }
+
     @Test
     void deleteCar_whenPassInvalidCarId_thenThrowEntityNotFoundException() {
         EntityNotFoundException thrown = assertThrows(
@@ -238,4 +693,23 @@ class CarServiceTest {
         );
         assertEquals("Car with 15 id was not found", thrown.getMessage());
     }
+
+    @Test
+    void deleteCars_whenPassIds_thenDeleteAtOnceAndReportEveryId() {
+        when(carRepository.deleteAllByIds(anyList()))
+                .thenReturn(new BulkDeleteResult(List.of(1L, 2L), List.of()));
+
+        ResponseEntity<?> response = carService.deleteCars(List.of(1L, 2L, 2L, 3L));
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        assertEquals(2L, body.get("deleted"));
+        assertEquals(2L, body.get("failed"));
+        assertEquals(List.of(
+                        new BulkItemResult(0, BulkItemStatus.DELETED, 1L, null),
+                        new BulkItemResult(1, BulkItemStatus.DELETED, 2L, null),
+                        new BulkItemResult(2, BulkItemStatus.FAILED, null, "Car with 2 id is repeated in the request"),
+                        new BulkItemResult(3, BulkItemStatus.FAILED, null, "Car with 3 id was not found")),
+                body.get("results"));
+        verify(carRepository, times(1)).deleteAllByIds(anyList());
+    }
 }
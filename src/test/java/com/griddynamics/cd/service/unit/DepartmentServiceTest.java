@@ -1,27 +1,42 @@
 package com.griddynamics.cd.service.unit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.griddynamics.cd.entity.DepartmentEntity;
-import com.griddynamics.cd.entity.EmployeeEntity;
 import com.griddynamics.cd.exception.EntityDeleteException;
+import com.griddynamics.cd.mapper.CarMapper;
 import com.griddynamics.cd.mapper.DepartmentMapper;
+import com.griddynamics.cd.mapper.EmployeeMapper;
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.BulkItemStatus;
 import com.griddynamics.cd.model.Department;
 import com.griddynamics.cd.model.create.CreateDepartmentRequest;
+import com.griddynamics.cd.model.filter.DepartmentFilter;
 import com.griddynamics.cd.model.update.UpdateDepartmentRequest;
+import com.griddynamics.cd.repository.CarRepository;
 import com.griddynamics.cd.repository.DepartmentRepository;
 import com.griddynamics.cd.repository.EmployeeRepository;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
 import com.griddynamics.cd.service.DepartmentService;
+import com.griddynamics.cd.service.ExportWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -37,7 +52,9 @@ class DepartmentServiceTest {
         departmentRepository = mock(DepartmentRepository.class);
         departmentMapper = mock(DepartmentMapper.class);
         employeeRepository = mock(EmployeeRepository.class);
-        departmentService = new DepartmentService(departmentRepository, employeeRepository, departmentMapper);
+        departmentService = new DepartmentService(departmentRepository, employeeRepository, mock(CarRepository.class), mock(TombstoneRepository.class),
+                departmentMapper, mock(EmployeeMapper.class), mock(CarMapper.class),
+                new ExportWriter(new ObjectMapper()), mock(PlatformTransactionManager.class));
     }
 
     @BeforeEach
@@ -60,20 +77,23 @@ class DepartmentServiceTest {
 
     @Test
     void getAllDepartments_whenCallMethod_thenValidMethodCallsNumber() {
-        when(departmentRepository.findAll())
-                .thenReturn(List.of(new DepartmentEntity(), new DepartmentEntity(), new DepartmentEntity()));
+        doAnswer(invocation -> {
+            Consumer<List<DepartmentEntity>> action = invocation.getArgument(2);
+            action.accept(List.of(new DepartmentEntity(), new DepartmentEntity(), new DepartmentEntity()));
+            return null;
+        }).when(departmentRepository).forEachChunkByFilter(any(DepartmentFilter.class), eq(1001), any());
 
         departmentService.getAllDepartments();
 
-        verify(departmentRepository, times(1)).findAll();
+        verify(departmentRepository, times(1)).forEachChunkByFilter(eq(new DepartmentFilter()), eq(1001), any());
         verify(departmentMapper, times(3)).toDepartmentModel(any(DepartmentEntity.class));
     }
 
     @Test
     void getDepartmentById_whenPassDepartmentId_thenValidMethodCallsNumber() {
-        departmentService.getDepartmentById(2L);
-        departmentService.getDepartmentById(1L);
-        departmentService.getDepartmentById(2L);
+        departmentService.getDepartmentById(2L, null);
+        departmentService.getDepartmentById(1L, null);
+        departmentService.getDepartmentById(2L, null);
 
         verify(departmentRepository, times(1)).findById(1L);
         verify(departmentRepository, times(2)).findById(2L);
@@ -87,7 +107,7 @@ class DepartmentServiceTest {
 
         EntityNotFoundException thrown = assertThrows(
                 EntityNotFoundException.class,
-                () -> departmentService.getDepartmentById(2L)
+                () -> departmentService.getDepartmentById(2L, null)
         );
         assertEquals(thrown.getMessage(), "Department with 2 id was not found");
     }
@@ -98,7 +118,6 @@ class DepartmentServiceTest {
 
         departmentService.saveDepartment(createDepartmentRequest);
 
-        verify(departmentRepository, times(0)).existsByEmail(anyString());
         verify(departmentRepository, times(1)).save(any(DepartmentEntity.class));
         verify(departmentMapper, times(1)).toDepartmentEntity(createDepartmentRequest);
         verify(departmentMapper, times(1)).toDepartmentModel(any(DepartmentEntity.class));
@@ -112,7 +131,6 @@ class DepartmentServiceTest {
 
         departmentService.saveDepartment(createDepartmentRequest);
 
-        verify(departmentRepository, times(1)).existsByEmail("test@test");
         verify(departmentRepository, times(1)).save(any(DepartmentEntity.class));
         verify(departmentMapper, times(1)).toDepartmentEntity(createDepartmentRequest);
         verify(departmentMapper, times(1)).toDepartmentModel(any(DepartmentEntity.class));
@@ -128,25 +146,24 @@ class DepartmentServiceTest {
         departmentService.saveDepartment(createDepartmentRequest1);
         departmentService.saveDepartment(createDepartmentRequest2);
 
-        verify(departmentRepository, times(1)).existsByEmail("test@test");
         verify(departmentRepository, times(2)).save(any(DepartmentEntity.class));
         verify(departmentMapper, times(2)).toDepartmentModel(any(DepartmentEntity.class));
         verify(departmentMapper, times(2)).toDepartmentEntity(any(CreateDepartmentRequest.class));
     }
 
     @Test
-    void saveDepartment_whenPassCreateDepartmentRequestWithExistingEmail_thenThrowEntityExistsException() {
+    void saveDepartment_whenPassCreateDepartmentRequestWithExistingEmail_thenPropagateDataIntegrityViolation() {
         CreateDepartmentRequest createDepartmentRequest = CreateDepartmentRequest.builder()
                 .email("test@test")
                 .build();
 
-        when(departmentRepository.existsByEmail("test@test"))
-                .thenReturn(true);
+        when(departmentRepository.save(any(DepartmentEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_department_email"));
 
-        EntityExistsException thrown = assertThrows(
-                EntityExistsException.class,
+        assertThrows(
+                DataIntegrityViolationException.class,
                 () -> departmentService.saveDepartment(createDepartmentRequest));
-        assertEquals("Department with test@test email already exist", thrown.getMessage());
+        verify(departmentRepository, times(1)).save(any(DepartmentEntity.class));
     }
 
     @Test
@@ -169,7 +186,6 @@ class DepartmentServiceTest {
 
         departmentService.updateDepartment(updateDepartmentRequest, 2L);
 
-        verify(departmentRepository, times(1)).existsByEmailAndIdIsNot("test@test", 2L);
         verify(departmentRepository, times(1)).findById(2L);
         verify(departmentRepository, times(1)).save(any(DepartmentEntity.class));
         verify(departmentMapper, times(1)).toDepartmentEntity(eq(updateDepartmentRequest), any(DepartmentEntity.class));
@@ -189,18 +205,16 @@ class DepartmentServiceTest {
     }
 
     @Test
-    void updateDepartment_whenPassUpdateDepartmentRequestWithExistingEmail_thenThrowEntityExistsException() {
+    void updateDepartment_whenPassUpdateDepartmentRequestWithExistingEmail_thenPropagateDataIntegrityViolation() {
         UpdateDepartmentRequest updateDepartmentRequest = UpdateDepartmentRequest.builder()
                 .email("test@test")
                 .build();
 
-        when(departmentRepository.existsByEmailAndIdIsNot("test@test", 2L))
-                .thenReturn(true);
+        when(departmentRepository.save(any(DepartmentEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_department_email"));
 
-        EntityExistsException thrown = assertThrows(EntityExistsException.class, () ->
+        assertThrows(DataIntegrityViolationException.class, () ->
                 departmentService.updateDepartment(updateDepartmentRequest, 2L));
-        assertEquals("Department with test@test email already exist", thrown.getMessage());
-
     }
 
     @Test
@@ -232,8 +246,8 @@ class DepartmentServiceTest {
     void deleteDepartment_whenPasDepartmentIdWithDependentEmployees_thenThrowEntityDeleteException() {
         when(departmentRepository.existsById(2L))
                 .thenReturn(true);
-        when(employeeRepository.findAllEmployeesByDepartmentId(2L))
-                .thenReturn(List.of(new EmployeeEntity(), new EmployeeEntity()));
+        when(employeeRepository.existsByDepartmentId(2L))
+                .thenReturn(true);
 
         EntityDeleteException thrown = assertThrows(
                 EntityDeleteException.class,
@@ -241,4 +255,22 @@ class DepartmentServiceTest {
         );
         assertEquals("Unable to delete department with id 2", thrown.getMessage());
     }
+
+    @Test
+    void deleteDepartments_whenSomeHaveEmployees_thenReportThemAsBlocked() {
+        when(departmentRepository.deleteAllByIds(anyList()))
+                .thenReturn(new BulkDeleteResult(List.of(1L), List.of(2L)));
+
+        ResponseEntity<?> response = departmentService.deleteDepartments(List.of(1L, 2L, 3L));
+
+        Map<?, ?> body = (Map<?, ?>) Objects.requireNonNull(response.getBody());
+        assertEquals(1L, body.get("deleted"));
+        assertEquals(2L, body.get("failed"));
+        assertEquals(List.of(
+                        new BulkItemResult(0, BulkItemStatus.DELETED, 1L, null),
+                        new BulkItemResult(1, BulkItemStatus.FAILED, null, "Unable to delete department with id 2"),
+                        new BulkItemResult(2, BulkItemStatus.FAILED, null, "Department with 3 id was not found")),
+                body.get("results"));
+        verify(departmentRepository, never()).deleteById(anyLong());
+    }
 }
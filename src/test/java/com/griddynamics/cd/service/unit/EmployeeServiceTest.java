@@ -1,25 +1,44 @@
 package com.griddynamics.cd.service.unit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.griddynamics.cd.entity.CarEntity;
 import com.griddynamics.cd.entity.DepartmentEntity;
 import com.griddynamics.cd.entity.EmployeeEntity;
 import com.griddynamics.cd.exception.EntityDeleteException;
+import com.griddynamics.cd.exception.ExpandNotSupportedException;
+import com.griddynamics.cd.exception.PerItemChangeException;
+import com.griddynamics.cd.mapper.CarMapper;
 import com.griddynamics.cd.mapper.EmployeeMapper;
+import com.griddynamics.cd.model.BulkItemResult;
+import com.griddynamics.cd.model.BulkItemStatus;
+import com.griddynamics.cd.model.Car;
 import com.griddynamics.cd.model.Employee;
 import com.griddynamics.cd.model.create.CreateEmployeeRequest;
+import com.griddynamics.cd.model.filter.EmployeeFilter;
+import com.griddynamics.cd.model.update.BulkUpdateItem;
+import com.griddynamics.cd.model.update.BulkUpdateRequest;
 import com.griddynamics.cd.model.update.UpdateEmployeeRequest;
 import com.griddynamics.cd.repository.CarRepository;
 import com.griddynamics.cd.repository.DepartmentRepository;
 import com.griddynamics.cd.repository.EmployeeRepository;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.repository.query.BulkDeleteResult;
 import com.griddynamics.cd.service.EmployeeService;
+import com.griddynamics.cd.service.ExportWriter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -31,6 +50,7 @@ class EmployeeServiceTest {
     private EmployeeMapper employeeMapper;
     private DepartmentRepository departmentRepository;
     private CarRepository carRepository;
+    private CarMapper carMapper;
     private EmployeeService employeeService;
 
     @BeforeEach
@@ -39,7 +59,9 @@ class EmployeeServiceTest {
         employeeMapper = mock(EmployeeMapper.class);
         departmentRepository = mock(DepartmentRepository.class);
         carRepository = mock(CarRepository.class);
-        employeeService = new EmployeeService(employeeRepository, departmentRepository, carRepository, employeeMapper);
+        carMapper = mock(CarMapper.class);
+        employeeService = new EmployeeService(employeeRepository, departmentRepository, carRepository, mock(TombstoneRepository.class), employeeMapper, carMapper,
+                new ExportWriter(new ObjectMapper()), mock(PlatformTransactionManager.class));
     }
 
     @BeforeEach
@@ -65,26 +87,53 @@ class EmployeeServiceTest {
 
     @Test
     void getAllEmployees_whenCallMethod_thenValidMethodCallsNumber() {
-        when(employeeRepository.findAll())
-                .thenReturn(List.of(new EmployeeEntity(), new EmployeeEntity()));
+        doAnswer(invocation -> {
+            Consumer<List<EmployeeEntity>> action = invocation.getArgument(2);
+            action.accept(List.of(new EmployeeEntity(), new EmployeeEntity()));
+            return null;
+        }).when(employeeRepository).forEachChunkByFilter(any(EmployeeFilter.class), eq(1001), any());
 
         employeeService.getAllEmployees();
 
-        verify(employeeRepository, times(1)).findAll();
+        verify(employeeRepository, times(1)).forEachChunkByFilter(eq(new EmployeeFilter()), eq(1001), any());
         verify(employeeMapper, times(2)).toEmployeeModel(any(EmployeeEntity.class));
     }
 
     @Test
     void getEmployeeById_whenPassEmployeeId_thenValidMethodCallsNumber() {
-        employeeService.getEmployeeById(1L);
-        employeeService.getEmployeeById(1L);
-        employeeService.getEmployeeById(2L);
+        employeeService.getEmployeeById(1L, null);
+        employeeService.getEmployeeById(1L, null);
+        employeeService.getEmployeeById(2L, null);
 
         verify(employeeRepository, times(2)).findById(1L);
         verify(employeeRepository, times(1)).findById(2L);
         verify(employeeMapper, times(3)).toEmployeeModel(any(EmployeeEntity.class));
     }
 
+    @Test
+    void getEmployeeById_whenExpandCars_thenEmbedCarsFromOneQuery() {
+        when(employeeMapper.toEmployeeModel(any(EmployeeEntity.class)))
+                .thenReturn(new Employee());
+        when(carRepository.findAllCarsByEmployeeId(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(new CarEntity(), new CarEntity()));
+        when(carMapper.toCarModel(any(CarEntity.class)))
+                .thenReturn(new Car());
+
+        Employee employee = employeeService.getEmployeeById(1L, List.of("cars"));
+
+        assertEquals(2, employee.getCars().size());
+        verify(carRepository, times(1)).findAllCarsByEmployeeId(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void getEmployeeById_whenExpandUnknownPath_thenThrowExpandNotSupportedException() {
+        ExpandNotSupportedException thrown = assertThrows(
+                ExpandNotSupportedException.class,
+                () -> employeeService.getEmployeeById(1L, List.of("department"))
+        );
+        assertEquals("Expand department is not supported", thrown.getMessage());
+    }
+
     @Test
     void getEmployeeById_whenPassInvalidEmployeeId_thenThrowEntityNotFoundException() {
         when(employeeRepository.findById(12L))
@@ -92,19 +141,19 @@ class EmployeeServiceTest {
 
         EntityNotFoundException thrown = assertThrows(
                 EntityNotFoundException.class,
-                () -> employeeService.getEmployeeById(12L)
+                () -> employeeService.getEmployeeById(12L, null)
         );
         assertEquals(thrown.getMessage(), "Employee with 12 id was not found");
     }
 
     @Test
     void getEmployeeByDepartmentId_whenPassEmployeeId_thenValidMethodCallsNumber() {
-        when(employeeRepository.findAllEmployeesByDepartmentId(5L))
+        when(employeeRepository.findAllEmployeesByDepartmentId(eq(5L), any(Pageable.class)))
                 .thenReturn(List.of(mock(EmployeeEntity.class), mock(EmployeeEntity.class), mock(EmployeeEntity.class)));
 
         employeeService.getEmployeesByDepartmentId(5L);
 
-        verify(employeeRepository, times(1)).findAllEmployeesByDepartmentId(5L);
+        verify(employeeRepository, times(1)).findAllEmployeesByDepartmentId(eq(5L), any(Pageable.class));
         verify(employeeMapper, times(3)).toEmployeeModel(any(EmployeeEntity.class));
     }
 
@@ -150,19 +199,18 @@ class EmployeeServiceTest {
     }
 
     @Test
-    void saveEmployee_whenPassCreateEmployeeRequestWithExistingPhoneNumber_thenThrowEntityExistsException() {
+    void saveEmployee_whenPassCreateEmployeeRequestWithExistingPhoneNumber_thenPropagateDataIntegrityViolation() {
         CreateEmployeeRequest createEmployeeRequest = CreateEmployeeRequest.builder()
                 .phoneNumber("1234567890")
                 .build();
-        when(employeeRepository.existsByPhoneNumber("1234567890"))
-                .thenReturn(true);
+        when(employeeRepository.save(any(EmployeeEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_employee_phone_number"));
 
-        EntityExistsException thrown = assertThrows(
-                EntityExistsException.class,
+        assertThrows(
+                DataIntegrityViolationException.class,
                 () -> employeeService.saveEmployee(createEmployeeRequest)
         );
-
-        assertEquals("Employee with 1234567890 phone number already exist", thrown.getMessage());
+        verify(employeeRepository, times(1)).save(any(EmployeeEntity.class));
     }
 
     @Test
@@ -182,6 +230,39 @@ class EmployeeServiceTest {
         assertEquals("Department with 3 id was not found", thrown.getMessage());
     }
 
+    @Test
+    void updateEmployees_whenItemsSwapPhoneNumbers_thenRejectBothAsTaken() {
+        BulkUpdateRequest<EmployeeFilter, UpdateEmployeeRequest> request = BulkUpdateRequest.<EmployeeFilter, UpdateEmployeeRequest>builder()
+                .items(List.of(
+                        new BulkUpdateItem<>(1L, UpdateEmployeeRequest.builder().phoneNumber("2222222222").build()),
+                        new BulkUpdateItem<>(2L, UpdateEmployeeRequest.builder().phoneNumber("1111111111").build())))
+                .build();
+        when(employeeRepository.findIdsByPhoneNumbers(List.of("2222222222", "1111111111")))
+                .thenReturn(Map.of("1111111111", 1L, "2222222222", 2L));
+
+        ResponseEntity<?> response = employeeService.updateEmployees(request);
+
+        List<?> results = (List<?>) ((Map<?, ?>) Objects.requireNonNull(response.getBody())).get("results");
+        assertEquals(new BulkItemResult(0, BulkItemStatus.FAILED, null, "Employee with 2222222222 phone number already exist"), results.get(0));
+        assertEquals(new BulkItemResult(1, BulkItemStatus.FAILED, null, "Employee with 1111111111 phone number already exist"), results.get(1));
+        verify(employeeRepository, never()).updateAll(anyList());
+    }
+
+    @Test
+    void updateEmployees_whenFilterChangesPhoneNumber_thenThrowPerItemChangeException() {
+        BulkUpdateRequest<EmployeeFilter, UpdateEmployeeRequest> request = BulkUpdateRequest.<EmployeeFilter, UpdateEmployeeRequest>builder()
+                .filter(new EmployeeFilter())
+                .changes(UpdateEmployeeRequest.builder().phoneNumber("0123456789").build())
+                .build();
+
+        PerItemChangeException thrown = assertThrows(
+                PerItemChangeException.class,
+                () -> employeeService.updateEmployees(request)
+        );
+        assertEquals("Field phoneNumber can only be changed per item", thrown.getMessage());
+        verify(employeeRepository, never()).updateAllByFilter(any(), any());
+    }
+
     @Test
     void updateEmployee_whenUpdateEmployeeRequestWithoutDepartmentId_thenValidMethodCallsNumber() {
         UpdateEmployeeRequest updateEmployeeRequest = new UpdateEmployeeRequest();
@@ -222,19 +303,18 @@ class EmployeeServiceTest {
     }
 
     @Test
-    void updateEmployee_whenPassUpdateEmployeeRequestWithExistingPhoneNumber_thenThrowEntityExistsException() {
+    void updateEmployee_whenPassUpdateEmployeeRequestWithExistingPhoneNumber_thenPropagateDataIntegrityViolation() {
         UpdateEmployeeRequest updateEmployeeRequest = UpdateEmployeeRequest.builder()
                 .phoneNumber("1234567890")
                 .build();
 
-        when(employeeRepository.existsByPhoneNumberAndIdIsNot("1234567890", 1L))
-                .thenReturn(true);
+        when(employeeRepository.save(any(EmployeeEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("uq_employee_phone_number"));
 
-        EntityExistsException thrown = assertThrows(
-                EntityExistsException.class,
+        assertThrows(
+                DataIntegrityViolationException.class,
                 () -> employeeService.updateEmployee(updateEmployeeRequest, 1L)
         );
-        assertEquals("Employee with 1234567890 phone number already exist", thrown.getMessage());
     }
 
     @Test
@@ -282,8 +362,8 @@ class EmployeeServiceTest {
     void deleteEmployee_whenPassEmployeeIdWithDependentCars_thenThrowEntityDeleteException() {
         when(employeeRepository.existsById(3L))
                 .thenReturn(true);
-        when(carRepository.findAllCarsByEmployeeId(3L))
-                .thenReturn(List.of(mock(CarEntity.class)));
+        when(carRepository.existsByEmployeeId(3L))
+                .thenReturn(true);
 
         EntityDeleteException thrown = assertThrows(
                 EntityDeleteException.class,
@@ -291,4 +371,20 @@ class EmployeeServiceTest {
         );
         assertEquals("Unable to delete employee with id 3", thrown.getMessage());
     }
+
+    @Test
+    void deleteEmployees_whenPassIds_thenDeleteAtOnceAndReportEveryId() {
+        when(employeeRepository.deleteAllByIds(anyList()))
+                .thenReturn(new BulkDeleteResult(List.of(1L), List.of(2L)));
+
+        ResponseEntity<?> response = employeeService.deleteEmployees(List.of(1L, 2L, 1L, 3L));
+
+        List<?> results = (List<?>) ((Map<?, ?>) Objects.requireNonNull(response.getBody())).get("results");
+        assertEquals(new BulkItemResult(0, BulkItemStatus.DELETED, 1L, null), results.get(0));
+        assertEquals(new BulkItemResult(1, BulkItemStatus.FAILED, null, "Unable to delete employee with id 2"), results.get(1));
+        assertEquals(new BulkItemResult(2, BulkItemStatus.FAILED, null, "Employee with 1 id is repeated in the request"), results.get(2));
+        assertEquals(new BulkItemResult(3, BulkItemStatus.FAILED, null, "Employee with 3 id was not found"), results.get(3));
+        verify(employeeRepository, times(1)).deleteAllByIds(anyList());
+        verify(employeeRepository, never()).existsById(anyLong());
+    }
 }
@@ -0,0 +1,40 @@
+package com.griddynamics.cd.service.unit;
+
+import com.griddynamics.cd.exception.SyncNotSupportedException;
+import com.griddynamics.cd.mapper.CarMapper;
+import com.griddynamics.cd.mapper.DepartmentMapper;
+import com.griddynamics.cd.mapper.EmployeeMapper;
+import com.griddynamics.cd.repository.CarRepository;
+import com.griddynamics.cd.repository.DepartmentRepository;
+import com.griddynamics.cd.repository.EmployeeRepository;
+import com.griddynamics.cd.repository.TombstoneRepository;
+import com.griddynamics.cd.service.SyncService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class SyncServiceTest {
+
+    private CarRepository carRepository;
+    private TombstoneRepository tombstoneRepository;
+    private SyncService syncService;
+
+    @BeforeEach
+    void init() {
+        carRepository = mock(CarRepository.class);
+        tombstoneRepository = mock(TombstoneRepository.class);
+        syncService = new SyncService(carRepository, mock(EmployeeRepository.class), mock(DepartmentRepository.class),
+                tombstoneRepository, mock(CarMapper.class), mock(EmployeeMapper.class), mock(DepartmentMapper.class));
+    }
+
+    @Test
+    void getChanges_whenChangeTrackingMissing_thenThrowSyncNotSupportedException() {
+        when(tombstoneRepository.isChangeTrackingInstalled()).thenReturn(false);
+
+        assertThrows(SyncNotSupportedException.class, () -> syncService.getChanges("cars", null, 100));
+        verify(carRepository, never()).findAllChangedAfter(any(), anyInt());
+        verify(tombstoneRepository, never()).findAllDeletedAfter(any(), any(), anyInt());
+    }
+}